@@ -0,0 +1,59 @@
+package framework.api;
+
+import io.restassured.http.ContentType;
+import io.restassured.http.Method;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable description of a single REST call.
+ * Instances can be shared freely between threads, every call to {@link RestCalls#send(ApiRequest)}
+ * builds its own RestAssured specification from it and returns its own response.
+ */
+@Value
+public class ApiRequest {
+
+    Method method;
+
+    String url;
+
+    // path template the url was built from, e.g. "api/users/%s", timings are grouped by it
+    String template;
+
+    Object body;
+
+    // null means any status below 400 is accepted
+    Integer expectedStatus;
+
+    ContentType contentType;
+
+    Map<String, String> headers;
+
+    Map<String, Object> queryParams;
+
+    @Builder(toBuilder = true)
+    private ApiRequest(@NonNull Method method, @NonNull String url, String template, Object body, Integer expectedStatus,
+                       ContentType contentType, Map<String, String> headers, Map<String, Object> queryParams) {
+        this.method = method;
+        this.url = url;
+        this.template = template;
+        this.body = body;
+        this.expectedStatus = expectedStatus;
+        this.contentType = contentType != null ? contentType : ContentType.JSON;
+        this.headers = headers != null ? Collections.unmodifiableMap(new HashMap<>(headers)) : Collections.emptyMap();
+        this.queryParams = queryParams != null ? Collections.unmodifiableMap(new HashMap<>(queryParams)) : Collections.emptyMap();
+    }
+
+    /**
+     * Method and template (or url path when there's none), e.g. "PUT api/users/%s".
+     */
+    public String getEndpoint() {
+        return method + " " + (template != null ? template : URI.create(url).getPath());
+    }
+}
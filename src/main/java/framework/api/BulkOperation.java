@@ -0,0 +1,85 @@
+package framework.api;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Runs an async call for every item keeping at most {@code concurrency} of them in flight.
+ * Results are streamed back in completion order, a failed item doesn't stop the others.
+ * The source is only read from the thread consuming the stream, so it doesn't need to be thread safe, and
+ * new calls are started as results are consumed.
+ */
+public final class BulkOperation {
+
+    private BulkOperation() {
+    }
+
+    public static <I, T> Stream<BulkResult<I, T>> run(Stream<I> items, int concurrency,
+                                                      Function<I, CompletableFuture<T>> call) {
+        checkArgument(items != null && call != null, "Parameters cant be null");
+        checkArgument(concurrency > 0, "Concurrency must be positive");
+        Iterator<BulkResult<I, T>> results = new CompletionIterator<>(items.iterator(), concurrency, call);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(results, Spliterator.NONNULL), false)
+                .onClose(items::close);
+    }
+
+    private static class CompletionIterator<I, T> implements Iterator<BulkResult<I, T>> {
+
+        private final Iterator<I> source;
+        private final int concurrency;
+        private final Function<I, CompletableFuture<T>> call;
+        private final BlockingQueue<BulkResult<I, T>> completed = new LinkedBlockingQueue<>();
+        // started but not handed to the consumer yet
+        private int pending;
+
+        CompletionIterator(Iterator<I> source, int concurrency, Function<I, CompletableFuture<T>> call) {
+            this.source = source;
+            this.concurrency = concurrency;
+            this.call = call;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending < concurrency && source.hasNext()) {
+                start(source.next());
+            }
+            return pending > 0;
+        }
+
+        @Override
+        public BulkResult<I, T> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            try {
+                BulkResult<I, T> result = completed.take();
+                pending--;
+                return result;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for bulk results", e);
+            }
+        }
+
+        private void start(I item) {
+            pending++;
+            CompletableFuture<T> future;
+            try {
+                future = call.apply(item);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((result, error) -> completed.add(new BulkResult<>(item, result,
+                    error instanceof CompletionException && error.getCause() != null ? error.getCause() : error)));
+        }
+    }
+}
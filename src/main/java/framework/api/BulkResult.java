@@ -0,0 +1,20 @@
+package framework.api;
+
+import lombok.Value;
+
+/**
+ * Outcome of one item of a bulk call, either the result or the error that made it fail.
+ */
+@Value
+public class BulkResult<I, T> {
+
+    I item;
+
+    T result;
+
+    Throwable error;
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,118 @@
+package framework.api;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Items of every page of a paginated list, in order. Page 1 is fetched when the stream is first read, it tells
+ * the number of pages, and from then on up to {@code window} of the following pages are fetched concurrently
+ * ahead of the consumer. Walking the whole list then costs about one round trip plus the transfer time
+ * instead of one round trip per page.
+ */
+public final class PagedStream {
+
+    private PagedStream() {
+    }
+
+    /**
+     * @param fetch      async call for a page, numbered from 1
+     * @param totalPages read from the first page
+     * @param items      of a page
+     * @param window     pages fetched ahead of the one being read
+     */
+    public static <P, T> Stream<T> of(IntFunction<CompletableFuture<P>> fetch, ToIntFunction<P> totalPages,
+                                      Function<P, List<T>> items, int window) {
+        checkArgument(fetch != null && totalPages != null && items != null, "Parameters cant be null");
+        checkArgument(window > 0, "Window must be positive");
+        PageIterator<P, T> iterator = new PageIterator<>(fetch, totalPages, items, window);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::cancel);
+    }
+
+    private static class PageIterator<P, T> implements Iterator<T> {
+
+        private final IntFunction<CompletableFuture<P>> fetch;
+        private final ToIntFunction<P> totalPages;
+        private final Function<P, List<T>> items;
+        private final int window;
+        // fetched or being fetched, in page order
+        private final Deque<CompletableFuture<P>> ahead = new ArrayDeque<>();
+
+        private int pages = -1;
+        private int nextPage = 1;
+        private Iterator<T> current = Collections.emptyIterator();
+
+        PageIterator(IntFunction<CompletableFuture<P>> fetch, ToIntFunction<P> totalPages, Function<P, List<T>> items, int window) {
+            this.fetch = fetch;
+            this.totalPages = totalPages;
+            this.items = items;
+            this.window = window;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (pages < 0) {
+                    P first = join(fetch.apply(nextPage++));
+                    pages = totalPages.applyAsInt(first);
+                    current = pageItems(first);
+                } else if (!ahead.isEmpty() || nextPage <= pages) {
+                    fill();
+                    current = pageItems(join(ahead.poll()));
+                } else {
+                    return false;
+                }
+                fill();
+            }
+            return true;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return current.next();
+        }
+
+        void cancel() {
+            ahead.forEach(page -> page.cancel(false));
+            ahead.clear();
+            nextPage = Integer.MAX_VALUE;
+        }
+
+        private void fill() {
+            while (ahead.size() < window && nextPage <= pages) {
+                ahead.add(fetch.apply(nextPage++));
+            }
+        }
+
+        private Iterator<T> pageItems(P page) {
+            List<T> pageItems = items.apply(page);
+            return pageItems != null ? pageItems.iterator() : Collections.emptyIterator();
+        }
+
+        private static <P> P join(CompletableFuture<P> page) {
+            try {
+                return page.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error) throw (Error) e.getCause();
+                throw e;
+            }
+        }
+    }
+}
@@ -1,14 +1,37 @@
 package framework.api;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.MapperFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import framework.api.capture.Exchange;
+import framework.api.capture.ExchangeHistory;
+import framework.api.cassette.Cassette;
+import framework.api.cassette.CassetteFilter;
+import framework.api.http.AdaptiveLimiter;
+import framework.api.http.AsyncRestClient;
+import framework.api.http.ConnectionPool;
+import framework.api.http.ConnectionPoolStats;
+import framework.api.http.HedgeConfig;
+import framework.api.http.HedgeStats;
+import framework.api.http.HedgingPolicy;
+import framework.api.http.HttpCache;
+import framework.api.http.HttpCacheConfig;
+import framework.api.http.HttpCacheFilter;
+import framework.api.http.HttpCacheStats;
+import framework.api.http.HttpPoolConfig;
+import framework.api.http.RateLimitConfig;
+import framework.api.http.RateLimitFilter;
+import framework.api.http.RateLimitStats;
+import framework.api.http.ReleaseConnectionFilter;
+import framework.api.mapping.JsonMapping;
+import framework.api.mapping.JsonPaths;
+import framework.api.metrics.RequestTimer;
+import framework.api.metrics.TimedObjectMapper;
+import framework.api.streaming.StreamingResponse;
 import io.restassured.RestAssured;
 import io.restassured.config.HttpClientConfig;
 import io.restassured.config.LogConfig;
 import io.restassured.config.ObjectMapperConfig;
 import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
 import io.restassured.http.ContentType;
 import io.restassured.http.Header;
 import io.restassured.internal.RequestSpecificationImpl;
@@ -18,15 +41,23 @@ import io.restassured.specification.RequestSpecification;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.params.CoreConnectionPNames;
 
+import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static org.hamcrest.Matchers.lessThan;
 
 @Log4j
 public abstract class RestCalls {
@@ -39,25 +70,107 @@ public abstract class RestCalls {
 
     RequestSpecification requestSpecification;
     private PrintStream restAssuredPrintStream;
+    private HttpPoolConfig poolConfig;
+    private ConnectionPool connectionPool;
+    private volatile AsyncRestClient asyncClient;
+    private Cassette cassette;
+    private HedgingPolicy hedgingPolicy;
+    private HttpCache httpCache;
+    private AdaptiveLimiter limiter;
 
     /**
-     * Changing Restassured underlying object mapper settings to:
-     * exclude null values from serialization
-     * to avoid writing dates as timestamp and be able to serialize java 8 LocalDate
+     * Changing Restassured underlying object mapper to the shared one of {@link JsonMapping}
      * to avoid redirects after making REST calls
+     * to run every request over the shared keep-alive connection pool, whose clients carry the timeouts
+     * to time deserialization of responses
      */
     RestAssuredConfig restAssuredConfig() {
-        return RestAssuredConfig.config().objectMapperConfig(new ObjectMapperConfig().jackson2ObjectMapperFactory(
-                (aClass, s) -> {
-                    ObjectMapper objectMapper = new ObjectMapper();
-                    objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-                    objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
-                    objectMapper.configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_VALUES,true);
-                    return objectMapper;
-                }
-        )).logConfig(new LogConfig(restAssuredPrintStream, true)).logConfig(new LogConfig(restAssuredPrintStream, true)).httpClient(HttpClientConfig.httpClientConfig()
-                .setParam(CoreConnectionPNames.CONNECTION_TIMEOUT, 5000000)
-                .setParam(CoreConnectionPNames.SO_TIMEOUT, 5000000));
+        return RestAssuredConfig.config().objectMapperConfig(new ObjectMapperConfig()
+                .jackson2ObjectMapperFactory((aClass, s) -> JsonMapping.mapper())
+                .defaultObjectMapper(new TimedObjectMapper())
+        ).logConfig(new LogConfig(restAssuredPrintStream, true)).logConfig(new LogConfig(restAssuredPrintStream, true)).httpClient(HttpClientConfig.httpClientConfig()
+                .httpClientFactory(connectionPool));
+    }
+
+    /**
+     * Records or replays every call, the blocking ones through a RestAssured filter and the async ones here.
+     * Streamed responses always go to the network.
+     */
+    void setCassette(Cassette cassette) {
+        this.cassette = cassette;
+        List<Filter> filters = RestAssured.filters().stream()
+                .filter(filter -> !(filter instanceof CassetteFilter))
+                .collect(Collectors.toList());
+        if (cassette != null) filters.add(new CassetteFilter(cassette));
+        RestAssured.replaceFiltersWith(filters);
+    }
+
+    void setConnectionPool(HttpPoolConfig poolConfig) {
+        this.poolConfig = poolConfig;
+        this.connectionPool = new ConnectionPool(poolConfig);
+    }
+
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return connectionPool.getStats();
+    }
+
+    void setHedging(HedgeConfig hedgeConfig) {
+        if (hedgingPolicy != null) hedgingPolicy.shutdown();
+        this.hedgingPolicy = new HedgingPolicy(hedgeConfig);
+    }
+
+    public HedgeStats getHedgeStats() {
+        return hedgingPolicy.getStats();
+    }
+
+    /**
+     * Caches the GET responses when enabled, the blocking calls through a RestAssured filter and the async ones here.
+     * Streamed responses always go to the network.
+     */
+    void setHttpCache(HttpCacheConfig cacheConfig) {
+        this.httpCache = cacheConfig.isEnabled() ? new HttpCache(cacheConfig) : null;
+        List<Filter> filters = RestAssured.filters().stream()
+                .filter(filter -> !(filter instanceof HttpCacheFilter))
+                .collect(Collectors.toList());
+        // before the body is read and the call timed, so hits don't count as calls
+        if (httpCache != null) filters.add(releaseFilterIndex(filters), new HttpCacheFilter(httpCache));
+        RestAssured.replaceFiltersWith(filters);
+    }
+
+    /**
+     * Sends the calls through a shared {@link AdaptiveLimiter} when enabled, the blocking ones through a RestAssured
+     * filter and the async ones here. Streamed responses aren't limited.
+     */
+    void setRateLimit(RateLimitConfig rateLimitConfig) {
+        if (limiter != null) limiter.shutdown();
+        this.limiter = rateLimitConfig.isEnabled() ? new AdaptiveLimiter(rateLimitConfig) : null;
+        List<Filter> filters = RestAssured.filters().stream()
+                .filter(filter -> !(filter instanceof RateLimitFilter))
+                .collect(Collectors.toList());
+        // after the cache, hits don't take a permit
+        if (limiter != null) filters.add(releaseFilterIndex(filters), new RateLimitFilter(limiter));
+        RestAssured.replaceFiltersWith(filters);
+    }
+
+    /**
+     * Null when the limiter is off.
+     */
+    public RateLimitStats getRateLimitStats() {
+        return limiter != null ? limiter.getStats() : null;
+    }
+
+    private static int releaseFilterIndex(List<Filter> filters) {
+        for (int i = 0; i < filters.size(); i++) {
+            if (filters.get(i) instanceof ReleaseConnectionFilter) return i;
+        }
+        return filters.size();
+    }
+
+    /**
+     * Null when the cache is off.
+     */
+    public HttpCacheStats getHttpCacheStats() {
+        return httpCache != null ? httpCache.getStats() : null;
     }
 
     public Services getRequest(int responseCode) {
@@ -87,7 +200,7 @@ public abstract class RestCalls {
 
         // log if request failed
         if (response.getStatusCode() != responseCode) {
-            logRequest((RequestSpecificationImpl) requestSpec);
+            logRequest((RequestSpecificationImpl) requestSpec, response);
         }
 
         response
@@ -138,7 +251,7 @@ public abstract class RestCalls {
 
         // log if request failed
         if ((responseCode != null && response.getStatusCode() != responseCode) || response.getStatusCode() > 399) {
-            logRequest((RequestSpecificationImpl) requestSpecification);
+            logRequest((RequestSpecificationImpl) requestSpecification, response);
         }
         if (responseCode != null) {
             try {
@@ -168,7 +281,7 @@ public abstract class RestCalls {
 
         // log if request failed
         if (response.getStatusCode() != responseCode) {
-            logRequest((RequestSpecificationImpl) requestSpecification);
+            logRequest((RequestSpecificationImpl) requestSpecification, response);
         }
 
         response
@@ -197,7 +310,7 @@ public abstract class RestCalls {
 
         // log if request failed
         if (response.getStatusCode() != responseCode){
-            logRequest((RequestSpecificationImpl) requestSpecification);
+            logRequest((RequestSpecificationImpl) requestSpecification, response);
         }
 
         response
@@ -216,7 +329,7 @@ public abstract class RestCalls {
                 .delete(requestUrl);
 
         // log if request failed
-        if (response.getStatusCode() != responseCode) logRequest((RequestSpecificationImpl) RestAssured.requestSpecification);
+        if (response.getStatusCode() != responseCode) logRequest((RequestSpecificationImpl) RestAssured.requestSpecification, response);
 
 
         response
@@ -226,6 +339,215 @@ public abstract class RestCalls {
         return (Services) this;
     }
 
+    /**
+     * Thread safe alternative to the fluent verbs above: it doesn't read or write any of the shared
+     * request state (url, headers, last response), so it can be called concurrently without locking.
+     * Idempotent calls are hedged when enabled, see {@link HedgingPolicy}.
+     */
+    public Response send(@NonNull ApiRequest request) {
+        log.info("Calling " + request.getMethod() + ": " + request.getUrl());
+        if (hedgingPolicy != null && hedgingPolicy.applies(request)) {
+            // a blocking attempt can't be interrupted, the losing one finishes in the background; both attempts
+            // run on hedge threads, their exchanges go to the history of the calling test thread
+            ExchangeHistory history = ExchangeHistory.current();
+            Response callResponse = join(hedgingPolicy.hedge(request.getEndpoint(),
+                    () -> CompletableFuture.supplyAsync(() -> ExchangeHistory.recordingTo(history,
+                            () -> execute(specification(request), request)), hedgingPolicy.getExecutor())));
+            verifyStatus(request.getExpectedStatus(), callResponse,
+                    () -> logRequest(request.getMethod().name(), request.getUrl(), requestHeaders(request), request.getBody(), callResponse));
+            return callResponse;
+        }
+
+        RequestSpecification requestSpec = specification(request);
+        Response callResponse = execute(requestSpec, request);
+        verifyStatus(request.getExpectedStatus(), callResponse,
+                () -> logRequest((RequestSpecificationImpl) requestSpec, callResponse));
+        return callResponse;
+    }
+
+    /**
+     * Like {@link #send(ApiRequest)} but the body is left on the connection, to be parsed incrementally by the
+     * returned response. It must be closed, the pooled connection stays leased until then.
+     * Streamed calls aren't added to the {@link ExchangeHistory}, their body can only be read once.
+     */
+    public StreamingResponse stream(@NonNull ApiRequest request) {
+        log.info("Calling streaming " + request.getMethod() + ": " + request.getUrl());
+        // the global filters buffer the body, see ReleaseConnectionFilter
+        RequestSpecification requestSpec = specification(request).noFilters();
+        Response callResponse = execute(requestSpec, request);
+
+        StreamingResponse streamingResponse = new StreamingResponse(callResponse);
+        try {
+            verifyStatus(request.getExpectedStatus(), callResponse,
+                    () -> logRequest((RequestSpecificationImpl) requestSpec, callResponse));
+        } catch (AssertionError | RuntimeException e) {
+            streamingResponse.close();
+            throw e;
+        }
+        return streamingResponse;
+    }
+
+    /**
+     * Non blocking version of {@link #send(ApiRequest)}. Failed calls are logged the same way and the future
+     * completes exceptionally with the status code AssertionError.
+     */
+    public CompletableFuture<Response> sendAsync(@NonNull ApiRequest request) {
+        log.info("Calling async " + request.getMethod() + ": " + request.getUrl());
+        long start = System.nanoTime();
+        String body;
+        try {
+            body = request.getBody() == null || request.getBody() instanceof String
+                    ? (String) request.getBody()
+                    : JsonMapping.write(request.getBody());
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        HttpCache.Lookup cached = httpCache != null
+                ? httpCache.lookup(request.getMethod().name(), urlWithQuery(request), name -> requestHeader(request, name))
+                : null;
+        if (cached != null && cached.isFresh()) {
+            return verified(request, body, start, CompletableFuture.completedFuture(cached.getResponse()));
+        }
+        ApiRequest sent = cached == null || cached.getConditionalHeaders().isEmpty() ? request : withHeaders(request, cached.getConditionalHeaders());
+
+        Supplier<CompletableFuture<Response>> attempt;
+        if (cassette == null) {
+            attempt = () -> executeAsync(sent, body);
+        } else {
+            String key = Cassette.key(request.getMethod().name(), urlWithQuery(request), body);
+            Response replayed = cassette.find(key);
+            if (replayed != null) return verified(request, body, start, CompletableFuture.completedFuture(replayed));
+            attempt = () -> executeAsync(sent, body).thenApply(callResponse -> {
+                cassette.record(key, callResponse);
+                return callResponse;
+            });
+        }
+        CompletableFuture<Response> call = hedgingPolicy != null && hedgingPolicy.applies(request)
+                ? hedgingPolicy.hedge(request.getEndpoint(), attempt)
+                : attempt.get();
+        if (cached != null) call = call.thenApply(callResponse -> httpCache.complete(cached, callResponse));
+        return verified(request, body, start, call);
+    }
+
+    private CompletableFuture<Response> verified(ApiRequest request, String body, long start, CompletableFuture<Response> call) {
+        if (ExchangeHistory.isEnabled()) call = captured(request, body, start, call);
+        return call.thenApply(callResponse -> {
+            verifyStatus(request.getExpectedStatus(), callResponse,
+                    () -> logRequest(request.getMethod().name(), request.getUrl(), requestHeaders(request), body, callResponse));
+            return callResponse;
+        });
+    }
+
+    /**
+     * Adds the call to the history of the calling thread once it completes, on whichever thread that is.
+     */
+    private static CompletableFuture<Response> captured(ApiRequest request, String body, long start, CompletableFuture<Response> call) {
+        ExchangeHistory history = ExchangeHistory.current();
+        long startMillis = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return call.whenComplete((callResponse, error) -> history.add(new Exchange(startMillis, System.nanoTime() - start,
+                request.getMethod().name(), urlWithQuery(request), () -> requestHeaders(request).iterator(), body, callResponse,
+                error instanceof CompletionException ? error.getCause() : error)));
+    }
+
+    private CompletableFuture<Response> executeAsync(ApiRequest request, String body) {
+        if (limiter == null) return getAsyncClient().execute(request, body);
+        return limiter.acquireAsync(request.getEndpoint()).thenCompose(permit -> getAsyncClient().execute(request, body)
+                .whenComplete((callResponse, error) -> {
+                    if (callResponse != null) permit.release(callResponse.getStatusCode(), callResponse.getHeader("Retry-After"));
+                    else permit.cancel();
+                }));
+    }
+
+    private static RequestSpecification specification(ApiRequest request) {
+        RequestSpecification requestSpec = RestAssured.given()
+                .contentType(request.getContentType())
+                .headers(request.getHeaders())
+                .queryParams(request.getQueryParams());
+        if (request.getBody() != null) requestSpec.body(request.getBody());
+        return requestSpec;
+    }
+
+    private static Response execute(RequestSpecification requestSpec, ApiRequest request) {
+        RequestTimer timer = RequestTimer.start(request.getEndpoint());
+        Response callResponse;
+        try {
+            callResponse = requestSpec
+                    .when()
+                    .request(request.getMethod(), request.getUrl());
+        } catch (RuntimeException e) {
+            timer.finish(false);
+            throw e;
+        }
+        timer.finish(callResponse.getStatusCode() < 400);
+        return callResponse;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    private static String requestHeader(ApiRequest request, String name) {
+        if (name.equalsIgnoreCase("Content-Type")) return request.getContentType().toString();
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) return header.getValue();
+        }
+        return null;
+    }
+
+    private static ApiRequest withHeaders(ApiRequest request, Map<String, String> headers) {
+        Map<String, String> merged = new HashMap<>(request.getHeaders());
+        merged.putAll(headers);
+        return request.toBuilder().headers(merged).build();
+    }
+
+    private static String urlWithQuery(ApiRequest request) {
+        if (request.getQueryParams().isEmpty()) return request.getUrl();
+        return request.getUrl() + "?" + request.getQueryParams().entrySet().stream()
+                .map(param -> param.getKey() + "=" + param.getValue())
+                .collect(Collectors.joining("&"));
+    }
+
+    private void verifyStatus(Integer expectedStatus, Response callResponse, Runnable logFailure) {
+        // log if request failed
+        if ((expectedStatus != null && callResponse.getStatusCode() != expectedStatus) || callResponse.getStatusCode() > 399) {
+            logFailure.run();
+        }
+        if (expectedStatus != null) {
+            callResponse
+                    .then()
+                    .statusCode(expectedStatus);
+        } else {
+            // no expected status accepts any below 400, like ApiRequest documents
+            callResponse
+                    .then()
+                    .statusCode(lessThan(400));
+        }
+    }
+
+    private AsyncRestClient getAsyncClient() {
+        if (asyncClient == null) {
+            synchronized (this) {
+                if (asyncClient == null) asyncClient = new AsyncRestClient(poolConfig);
+            }
+        }
+        return asyncClient;
+    }
+
+    public void shutdown() {
+        if (hedgingPolicy != null) hedgingPolicy.shutdown();
+        if (limiter != null) limiter.shutdown();
+        if (cassette != null) cassette.close();
+        if (asyncClient != null) asyncClient.shutdown();
+        connectionPool.shutdown();
+    }
+
     public Services addHeader(String key, String value) {
         headers.put(key, value);
         return (Services) this;
@@ -292,16 +614,20 @@ public abstract class RestCalls {
         return response.getHeader(key);
     }
 
+    /**
+     * Paths are compiled once and the body parsed once per response, see {@link JsonPaths}.
+     * Objects and arrays come back as JSON, null when the path is missing.
+     */
     public String getResponseValueForJsonPath(String path) {
-        return response
-                .jsonPath()
-                .get(path)
-                .toString();
+        return JsonPaths.getString(response, path);
+    }
+
+    public <T> T getResponseValueForJsonPath(String path, Class<T> type) {
+        return JsonPaths.get(response, path, type);
     }
 
     public String getResponseValueForXmlPath(String path) {
-        return response
-                .xmlPath()
+        return JsonPaths.xmlPath(response)
                 .get(path)
                 .toString();
     }
@@ -321,20 +647,14 @@ public abstract class RestCalls {
 
     void setPrintStream() {
         if (restAssuredPrintStream == null) {
-            OutputStream output = new OutputStream() {
-                private StringBuilder myStringBuilder = new StringBuilder();
-
+            OutputStream output = new ByteArrayOutputStream() {
                 @Override
-                public void write(int b) {
-                    this.myStringBuilder.append((char) b);
-                }
-
-                @Override
-                public void flush() {
-                    if (!myStringBuilder.toString().isEmpty() && !myStringBuilder.toString().equalsIgnoreCase("\n")) {
-                        log.info("<pre>" + this.myStringBuilder.toString() + "</pre>");
+                public synchronized void flush() {
+                    // RestAssured prints line by line, lone line breaks aren't worth an event
+                    if (count > 0 && !(count == 1 && buf[0] == '\n')) {
+                        log.info("<pre>" + new String(buf, 0, count, StandardCharsets.UTF_8) + "</pre>");
                     }
-                    myStringBuilder = new StringBuilder();
+                    reset();
                 }
             };
             restAssuredPrintStream = new PrintStream(output, true);  // true: auto-flush must be set!
@@ -344,27 +664,36 @@ public abstract class RestCalls {
     /**
      * Used to log failed requests
      */
-    private void logRequest(RequestSpecificationImpl reqSpec) {
-        try {
-            ObjectMapper mapper = new ObjectMapper()
-                    .setSerializationInclusion(JsonInclude.Include.NON_NULL)
-                    .enable(SerializationFeature.INDENT_OUTPUT);
+    private void logRequest(RequestSpecificationImpl reqSpec, Response response) {
+        logRequest(reqSpec.getMethod(), reqSpec.getURI(), reqSpec.getHeaders().asList(), reqSpec.getBody(), response);
+    }
 
+    private static List<Header> requestHeaders(ApiRequest request) {
+        List<Header> requestHeaders = new ArrayList<>();
+        requestHeaders.add(new Header("Content-Type", request.getContentType().toString()));
+        request.getHeaders().forEach((key, value) -> requestHeaders.add(new Header(key, value)));
+        return requestHeaders;
+    }
+
+    private void logRequest(String method, String uri, List<Header> headers, Object requestBody, Response response) {
+        try {
             String body;
-            if (reqSpec.getBody() == null || reqSpec.getBody().equals("")) {
+            if (requestBody == null || requestBody.equals("")) {
                 body = "NULL";
+            } else if (requestBody instanceof String) {
+                Object json = JsonMapping.read((String) requestBody, Object.class);
+                body = JsonMapping.prettyWriter().writeValueAsString(json);
             } else {
-                Object json = mapper.readValue((String) reqSpec.getBody(), Object.class);
-                body = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(json);
+                // a DTO not serialized yet, e.g. the body of a hedged send
+                body = JsonMapping.prettyWriter().writeValueAsString(requestBody);
             }
 
-            List<Header> headers = reqSpec.getHeaders().asList();
-            String reqHeaders = headers.isEmpty() ? "NULL" : mapper.writerWithDefaultPrettyPrinter().writeValueAsString(headers);
+            String reqHeaders = headers.isEmpty() ? "NULL" : JsonMapping.prettyWriter().writeValueAsString(headers);
 
             StringBuilder logBuilder = new StringBuilder();
             logBuilder.append("\n\n----------------------------------------  REQUEST_FAILED  -----------------------------------------------------------------------------");
-            logBuilder.append("\n - REQUEST_METHOD: ").append(reqSpec.getMethod());
-            logBuilder.append("\n - REQUEST_URL: ").append(reqSpec.getURI());
+            logBuilder.append("\n - REQUEST_METHOD: ").append(method);
+            logBuilder.append("\n - REQUEST_URL: ").append(uri);
             logBuilder.append("\n - REQUEST_HEADERS: ").append(reqHeaders);
             logBuilder.append("\n - REQUEST_BODY: ").append(body).append("\n");
             logBuilder.append("\n - RESPONSE_STATUS: ").append(response.getStatusCode());
@@ -374,7 +703,7 @@ public abstract class RestCalls {
 
             log.info(logBuilder);
         } catch (Exception e) {
-            System.out.println();
+            log.warn("Couldn't log the failed " + method + " " + uri + ", status " + response.getStatusCode(), e);
         }
     }
 }
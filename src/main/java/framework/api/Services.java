@@ -1,31 +1,118 @@
 package framework.api;
 
+import framework.api.capture.ExchangeCaptureFilter;
+import framework.api.cassette.Cassette;
+import framework.api.cassette.CassetteMode;
+import framework.api.fixtures.UserPool;
+import framework.api.fixtures.UserPoolConfig;
+import framework.api.generated.UsersApiModule;
+import framework.api.http.HedgeConfig;
+import framework.api.http.HttpCacheConfig;
+import framework.api.http.HttpPoolConfig;
+import framework.api.http.RateLimitConfig;
+import framework.api.http.ReleaseConnectionFilter;
+import framework.api.mapping.JsonMapping;
+import framework.api.stub.EmbeddedUserApi;
+import framework.ui.common.ReadConfig;
 import io.restassured.RestAssured;
 import io.restassured.config.RestAssuredConfig;
+import io.restassured.filter.Filter;
 import io.restassured.http.ContentType;
+import lombok.extern.log4j.Log4j;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 import static io.restassured.config.EncoderConfig.encoderConfig;
 import static io.restassured.config.RedirectConfig.redirectConfig;
 
+@Log4j
 public class Services extends RestCalls {
 
-    private UserService userService;
+    private static final String USER_SERVICE_URL = "https://reqres.in/";
+
+    private final String userServiceUrl;
+    private final UserService userService;
+    private EmbeddedUserApi embeddedUserApi;
+    private volatile UserPool userPool;
 
     public Services() {
         setPrintStream();
+        JsonMapping.warmUp(UsersApiModule.DTOS);
+        setConnectionPool(new HttpPoolConfig());
+        setHedging(new HedgeConfig());
         RestAssuredConfig conf = restAssuredConfig();
         conf = conf.redirect(redirectConfig().followRedirects(false));
         conf = conf.encoderConfig(encoderConfig().appendDefaultContentCharsetToContentTypeIfUndefined(false));
 
         RestAssured.config = conf;
+        if (RestAssured.filters().stream().noneMatch(ReleaseConnectionFilter.class::isInstance)) {
+            RestAssured.filters(new ReleaseConnectionFilter());
+        }
+        if (RestAssured.filters().stream().noneMatch(ExchangeCaptureFilter.class::isInstance)) {
+            // first, so the captured time includes reading the body
+            List<Filter> filters = new ArrayList<>(RestAssured.filters());
+            filters.add(0, new ExchangeCaptureFilter());
+            RestAssured.replaceFiltersWith(filters);
+        }
         requestSpecification = RestAssured.given();
         setContentType(ContentType.JSON);
+        setCassette(openCassette());
+        setHttpCache(new HttpCacheConfig());
+        setRateLimit(new RateLimitConfig());
+        userServiceUrl = startEmbeddedApi() ? embeddedUserApi.getBaseUrl() : USER_SERVICE_URL;
+        userService = new UserService(this, userServiceUrl);
     }
 
     public UserService getUserService() {
-        if (userService == null) userService = new UserService(this);
         resetHeaders();
-        baseUrl = "https://reqres.in/";
+        baseUrl = userServiceUrl;
         return userService;
     }
+
+    /**
+     * Users created ahead for the tests, the pool starts filling on the first call.
+     */
+    public UserPool getUserPool() {
+        if (userPool == null) {
+            synchronized (this) {
+                if (userPool == null) userPool = new UserPool(userService, new UserPoolConfig()).warmUp();
+            }
+        }
+        return userPool;
+    }
+
+    @Override
+    public void shutdown() {
+        if (userPool != null) {
+            log.info(userPool.getStats());
+            userPool.shutdown();
+        }
+        // before the clients are closed, the cleanup deletes through them
+        userService.getCleanup().shutdown();
+        log.info(userService.getCleanup().getStats());
+        super.shutdown();
+        if (embeddedUserApi != null) embeddedUserApi.stop();
+    }
+
+    /**
+     * cassette.mode (off, record or replay) and cassette.file from config.properties.
+     */
+    private static Cassette openCassette() {
+        ReadConfig readConfig = new ReadConfig();
+        CassetteMode mode = CassetteMode.valueOf(readConfig.getPropValue("cassette.mode", "off").toUpperCase());
+        if (mode == CassetteMode.OFF) return null;
+        return new Cassette(Paths.get(readConfig.getPropValue("cassette.file")), mode);
+    }
+
+    /**
+     * api.embedded from config.properties, true points the services at an in process stand-in instead of the real api.
+     */
+    private boolean startEmbeddedApi() {
+        ReadConfig readConfig = new ReadConfig();
+        if (!readConfig.getBooleanValue("api.embedded", false)) return false;
+        embeddedUserApi = new EmbeddedUserApi(readConfig.getIntValue("api.embedded.port", 0));
+        return true;
+    }
 }
@@ -1,45 +1,158 @@
 package framework.api;
 
+import framework.api.fixtures.CleanupConfig;
+import framework.api.fixtures.CleanupRegistry;
+import framework.api.generated.UsersApi;
+import framework.api.mapping.JsonPaths;
 import framework.api.requests.CreateUserRequest;
-import io.restassured.http.ContentType;
+import framework.api.responses.CreateUserResponse;
+import framework.api.responses.UpdateUserResponse;
+import framework.api.responses.User;
+import framework.api.responses.UsersPage;
+import framework.api.streaming.StreamingResponse;
+import io.restassured.http.Method;
 import io.restassured.response.Response;
 
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
 import static com.google.common.base.Preconditions.checkArgument;
 
+/**
+ * User endpoint calls. Every call is sent as an immutable {@link ApiRequest}, so one instance can be
+ * shared by tests running in parallel. The async calls go through {@link UsersApi}, generated from
+ * openapi/users.json at build time.
+ */
 public class UserService {
 
-    private Services api;
+    private static final String USERS = "api/users";
+    private static final String USER = "api/users/%s";
+
+    private final Services api;
+    private final String baseUrl;
+    private final UsersApi usersApi;
+    private final CleanupRegistry cleanup;
 
-    public UserService(Services services) {
+    public UserService(Services services, String baseUrl) {
         this.api = services;
+        this.baseUrl = baseUrl;
+        this.usersApi = new UsersApi(services, baseUrl);
+        this.cleanup = new CleanupRegistry("users", id -> deleteUserAsync(id, 204), new CleanupConfig());
+    }
+
+    /**
+     * Users created through this service that weren't deleted yet, they are deleted at the end of the run.
+     */
+    public CleanupRegistry getCleanup() {
+        return cleanup;
     }
 
     public Response postUser(CreateUserRequest user, Integer statusCode) {
 
-        return api
-                .setContentType(ContentType.JSON)
-                .setRequestUrl("api/users")
-                .postRequest(user,statusCode)
-                .getResponse();
+        Response response = api.send(request(Method.POST, USERS)
+                .body(user)
+                .expectedStatus(statusCode)
+                .build());
+        if (response.getStatusCode() == 201) cleanup.register(JsonPaths.getString(response, "id"));
+        return response;
     }
 
     public Response putUser(String id, CreateUserRequest userRequest, Integer statusCode) {
 
         checkArgument(id != null,"Parameters cant be null");
-        return api
-                .setContentType(ContentType.JSON)
-                .setRequestUrl("api/users/%s",id)
-                .putRequest(userRequest,statusCode,null)
-                .getResponse();
+        return api.send(request(Method.PUT, USER, id)
+                .body(userRequest)
+                .expectedStatus(statusCode)
+                .build());
     }
 
     public Response deleteUser(String id, Integer statusCode) {
 
         checkArgument(id != null,"Parameters cant be null");
-        return api
-                .setContentType(ContentType.JSON)
-                .setRequestUrl("api/users/%s",id)
-                .deleteRequest(statusCode)
-                .getResponse();
+        Response response = api.send(request(Method.DELETE, USER, id)
+                .expectedStatus(statusCode)
+                .build());
+        if (response.getStatusCode() < 300) cleanup.forget(id);
+        return response;
+    }
+
+    /**
+     * One page of the user list, read incrementally, e.g. {@code extract("/total")} or {@code elements("/data", User.class)}.
+     */
+    public StreamingResponse getUsers(int page, Integer statusCode) {
+
+        return api.stream(request(Method.GET, USERS)
+                .queryParams(Map.of("page", page))
+                .expectedStatus(statusCode)
+                .build());
+    }
+
+    public CompletableFuture<UsersPage> getUsersAsync(int page, Integer statusCode) {
+
+        return usersApi.listUsers(page, statusCode);
+    }
+
+    /**
+     * Every user of the list, page by page, with up to {@code prefetch} pages fetched ahead, see {@link PagedStream}.
+     */
+    public Stream<User> listUsers(int prefetch) {
+
+        return PagedStream.of(page -> getUsersAsync(page, 200), UsersPage::getTotalPages, UsersPage::getData, prefetch);
+    }
+
+    public CompletableFuture<CreateUserResponse> postUserAsync(CreateUserRequest user, Integer statusCode) {
+
+        return usersApi.createUser(user, statusCode)
+                .thenApply(created -> {
+                    if (created != null && created.getId() != null) cleanup.register(created.getId().toString());
+                    return created;
+                });
+    }
+
+    public CompletableFuture<UpdateUserResponse> putUserAsync(String id, CreateUserRequest userRequest, Integer statusCode) {
+
+        checkArgument(id != null,"Parameters cant be null");
+        return usersApi.updateUser(id, userRequest, statusCode);
+    }
+
+    public CompletableFuture<Void> deleteUserAsync(String id, Integer statusCode) {
+
+        checkArgument(id != null,"Parameters cant be null");
+        return usersApi.deleteUser(id, statusCode)
+                .thenAccept(response -> {
+                    if (response.getStatusCode() < 300) cleanup.forget(id);
+                });
+    }
+
+    /**
+     * Creates the users with at most {@code concurrency} calls in flight, results come back as they complete.
+     */
+    public Stream<BulkResult<CreateUserRequest, CreateUserResponse>> postUsers(Stream<CreateUserRequest> users, Integer statusCode,
+                                                                              int concurrency) {
+        return BulkOperation.run(users, concurrency, user -> postUserAsync(user, statusCode));
+    }
+
+    public Stream<BulkResult<CreateUserRequest, CreateUserResponse>> postUsers(Collection<CreateUserRequest> users, Integer statusCode,
+                                                                              int concurrency) {
+        checkArgument(users != null,"Parameters cant be null");
+        return postUsers(users.stream(), statusCode, concurrency);
+    }
+
+    public Stream<BulkResult<String, Void>> deleteUsers(Stream<String> ids, Integer statusCode, int concurrency) {
+        return BulkOperation.run(ids, concurrency, id -> deleteUserAsync(id, statusCode));
+    }
+
+    public Stream<BulkResult<String, Void>> deleteUsers(Collection<String> ids, Integer statusCode, int concurrency) {
+        checkArgument(ids != null,"Parameters cant be null");
+        return deleteUsers(ids.stream(), statusCode, concurrency);
+    }
+
+    private ApiRequest.ApiRequestBuilder request(Method method, String path, Object... parameters) {
+        return ApiRequest.builder()
+                .method(method)
+                .url(baseUrl + String.format(path, parameters))
+                .template(path);
     }
 }
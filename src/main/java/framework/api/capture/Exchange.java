@@ -0,0 +1,62 @@
+package framework.api.capture;
+
+import framework.api.mapping.JsonMapping;
+import io.restassured.http.Header;
+import io.restassured.response.Response;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * One HTTP call as it was sent and received. Only references are kept, the request body as it went out
+ * (String or byte[]) and the buffered response, nothing is formatted until {@link #format()}.
+ */
+@Value
+public class Exchange {
+
+    private static final int MAX_BODY_CHARS = 16 * 1024;
+
+    long startMillis;
+    long elapsedNanos;
+    String method;
+    String uri;
+    Iterable<Header> requestHeaders;
+    Object requestBody;
+    // null when the call failed before a response
+    Response response;
+    Throwable error;
+
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append(new SimpleDateFormat("HH:mm:ss.SSS").format(new Date(startMillis)))
+                .append("  ").append(method).append(' ').append(uri)
+                .append(String.format("  (%.1f ms)", elapsedNanos / 1e6)).append('\n');
+        for (Header header : requestHeaders) text.append("> ").append(header).append('\n');
+        appendBody(text, requestBody);
+        if (response != null) {
+            text.append("< ").append(response.getStatusLine()).append('\n');
+            for (Header header : response.getHeaders()) text.append("< ").append(header).append('\n');
+            appendBody(text, response.asByteArray());
+        } else if (error != null) {
+            text.append("! ").append(error).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void appendBody(StringBuilder text, Object body) {
+        if (body == null) return;
+        String value = body instanceof byte[] ? new String((byte[]) body, StandardCharsets.UTF_8) : String.valueOf(body);
+        if (value.isEmpty()) return;
+        try {
+            value = JsonMapping.prettyWriter().writeValueAsString(JsonMapping.read(value, Object.class));
+        } catch (Exception e) {
+            // not json, shown as it is
+        }
+        if (value.length() > MAX_BODY_CHARS) {
+            value = value.substring(0, MAX_BODY_CHARS) + "... (" + (value.length() - MAX_BODY_CHARS) + " more chars)";
+        }
+        text.append('\n').append(value).append("\n\n");
+    }
+}
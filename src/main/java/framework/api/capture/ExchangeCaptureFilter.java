@@ -0,0 +1,34 @@
+package framework.api.capture;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Adds every RestAssured call to the current {@link ExchangeHistory}, the one of the calling thread unless the call
+ * runs under {@link ExchangeHistory#recordingTo}.
+ */
+public class ExchangeCaptureFilter implements Filter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        if (!ExchangeHistory.isEnabled()) return ctx.next(requestSpec, responseSpec);
+
+        long startMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        Response response;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+        } catch (RuntimeException e) {
+            ExchangeHistory.current().add(new Exchange(startMillis, System.nanoTime() - start, requestSpec.getMethod(),
+                    requestSpec.getURI(), requestSpec.getHeaders(), requestSpec.getBody(), null, e));
+            throw e;
+        }
+        ExchangeHistory.current().add(new Exchange(startMillis, System.nanoTime() - start, requestSpec.getMethod(),
+                requestSpec.getURI(), requestSpec.getHeaders(), requestSpec.getBody(), response, null));
+        return response;
+    }
+}
@@ -0,0 +1,79 @@
+package framework.api.capture;
+
+import framework.ui.common.ReadConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * The last exchanges of a test thread, kept so a failure can show what led to it.
+ * A thread's ring is created on its first exchange and overwrites the oldest entry once full; recording
+ * only stores references, the cost of formatting is paid by {@link Exchange#format()} for failed tests.
+ * Size comes from the {@code capture.exchanges} property, 0 turns capturing off.
+ */
+public final class ExchangeHistory {
+
+    private static final int CAPACITY = configuredCapacity();
+    private static final ThreadLocal<ExchangeHistory> HISTORY = ThreadLocal.withInitial(ExchangeHistory::new);
+
+    private final Exchange[] exchanges = new Exchange[CAPACITY];
+    private int next;
+    private int size;
+
+    private ExchangeHistory() {
+    }
+
+    public static boolean isEnabled() {
+        return CAPACITY > 0;
+    }
+
+    /**
+     * History of the calling thread, async calls hold on to it to record from the IO thread.
+     */
+    public static ExchangeHistory current() {
+        return HISTORY.get();
+    }
+
+    /**
+     * Runs the call with the given history as the current one, so a call made on a worker thread is recorded
+     * in the history of the test thread it runs for.
+     */
+    public static <T> T recordingTo(ExchangeHistory history, Supplier<T> call) {
+        ExchangeHistory own = HISTORY.get();
+        HISTORY.set(history);
+        try {
+            return call.get();
+        } finally {
+            HISTORY.set(own);
+        }
+    }
+
+    public synchronized void add(Exchange exchange) {
+        if (CAPACITY == 0) return;
+        exchanges[next] = exchange;
+        next = (next + 1) % CAPACITY;
+        if (size < CAPACITY) size++;
+    }
+
+    /**
+     * Recorded exchanges, oldest first.
+     */
+    public synchronized List<Exchange> snapshot() {
+        if (size == 0) return Collections.emptyList();
+        List<Exchange> snapshot = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) snapshot.add(exchanges[(next - size + i + CAPACITY) % CAPACITY]);
+        return snapshot;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < CAPACITY; i++) exchanges[i] = null;
+        next = 0;
+        size = 0;
+    }
+
+    private static int configuredCapacity() {
+        return Math.max(0, new ReadConfig().getIntValue("capture.exchanges", 10));
+    }
+}
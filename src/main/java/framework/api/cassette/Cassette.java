@@ -0,0 +1,226 @@
+package framework.api.cassette;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import framework.api.mapping.JsonMapping;
+import io.restassured.RestAssured;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.RestAssuredResponseOptionsImpl;
+import io.restassured.response.Response;
+import lombok.extern.log4j.Log4j;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Append only file of HTTP exchanges, to rerun suites without the network.
+ * Every record is {@code [length][key][status][headers][body]}, keyed on method, url with sorted query params and
+ * the body normalized (JSON with sorted fields, whitespace ignored). Replaying maps the file read only and
+ * indexes it once by key, so lookups are a hash lookup plus a copy of the body out of the mapping.
+ * When an exchange was recorded more than once the last one wins.
+ */
+@Log4j
+public class Cassette implements AutoCloseable {
+
+    private static final ObjectWriter NORMALIZED_WRITER = JsonMapping.writer(Object.class)
+            .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+    private final CassetteMode mode;
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer mapped;
+    private final Map<String, Integer> index = new HashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder recorded = new LongAdder();
+
+    public Cassette(Path file, CassetteMode mode) {
+        checkArgument(file != null && mode != null && mode != CassetteMode.OFF, "A cassette needs a file and a record or replay mode");
+        this.mode = mode;
+        this.file = file;
+        try {
+            if (mode == CassetteMode.RECORD) {
+                if (file.getParent() != null) Files.createDirectories(file.getParent());
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                mapped = null;
+            } else {
+                checkState(Files.exists(file), "No cassette to replay at " + file.toAbsolutePath());
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+                checkState(channel.size() <= Integer.MAX_VALUE, "Cassettes over 2GB can't be mapped: " + file);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                buildIndex();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't open the cassette " + file, e);
+        }
+        log.info(String.format("Cassette %s in %s mode, %d exchanges indexed", file, mode, index.size()));
+    }
+
+    public CassetteMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Recorded response of the exchange, null when it wasn't recorded or the cassette is recording.
+     */
+    public Response find(String key) {
+        if (mode != CassetteMode.REPLAY) return null;
+        Integer offset = index.get(key);
+        if (offset == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        // own view of the mapping, replays run on many threads
+        ByteBuffer record = mapped.duplicate();
+        record.position(offset);
+        record.getInt();
+        skip(record);
+        int status = record.getInt();
+        String headers = new String(bytes(record), StandardCharsets.UTF_8);
+        return toResponse(status, headers, bytes(record));
+    }
+
+    public void record(String key, Response response) {
+        if (mode != CassetteMode.RECORD) return;
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] headerBytes = response.getHeaders().asList().stream()
+                .map(header -> header.getName() + ": " + header.getValue())
+                .collect(Collectors.joining("\n"))
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] body = response.asByteArray();
+
+        int length = 4 + keyBytes.length + 4 + 4 + headerBytes.length + 4 + body.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length);
+        record.putInt(keyBytes.length).put(keyBytes);
+        record.putInt(response.getStatusCode());
+        record.putInt(headerBytes.length).put(headerBytes);
+        record.putInt(body.length).put(body);
+        record.flip();
+        try {
+            // one write per record so records of parallel calls don't interleave
+            synchronized (channel) {
+                while (record.hasRemaining()) channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't record to the cassette " + file, e);
+        }
+        recorded.increment();
+    }
+
+    /**
+     * Method, url with its query params sorted and the body normalized, e.g. "POST http://host/api/users {"job":"x","name":"y"}".
+     */
+    public static String key(String method, String url, Object body) {
+        return method.toUpperCase() + " " + normalizeUrl(url) + " " + normalizeBody(body);
+    }
+
+    @Override
+    public void close() {
+        log.info(String.format("Cassette %s closed, hits=%d misses=%d recorded=%d", file, hits.sum(), misses.sum(), recorded.sum()));
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void buildIndex() {
+        ByteBuffer records = mapped.duplicate();
+        while (records.remaining() >= 8) {
+            int offset = records.position();
+            int length = records.getInt();
+            if (length < 0 || length > records.remaining()) {
+                log.warn("Cassette " + file + " ends with an incomplete record at " + offset + ", ignoring it");
+                break;
+            }
+            String key = new String(bytes(records), StandardCharsets.UTF_8);
+            index.put(key, offset);
+            records.position(offset + 4 + length);
+        }
+    }
+
+    private static String normalizeUrl(String url) {
+        int query = url.indexOf('?');
+        if (query < 0) return url;
+        String[] params = url.substring(query + 1).split("&");
+        try {
+            for (int i = 0; i < params.length; i++) params[i] = URLDecoder.decode(params[i], "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        Arrays.sort(params);
+        return url.substring(0, query) + "?" + String.join("&", params);
+    }
+
+    private static String normalizeBody(Object body) {
+        if (body == null) return "";
+        String text = body instanceof byte[] ? new String((byte[]) body, StandardCharsets.UTF_8) : body.toString();
+        text = text.trim();
+        if (text.isEmpty()) return "";
+        try {
+            JsonNode json = JsonMapping.mapper().readTree(text);
+            return NORMALIZED_WRITER.writeValueAsString(JsonMapping.mapper().treeToValue(json, Object.class));
+        } catch (IOException e) {
+            return text;
+        }
+    }
+
+    private static Response toResponse(int status, String headers, byte[] body) {
+        List<Header> headerList = new ArrayList<>();
+        String contentType = null;
+        for (String line : headers.isEmpty() ? new String[0] : headers.split("\n")) {
+            int separator = line.indexOf(": ");
+            String name = line.substring(0, separator);
+            String value = line.substring(separator + 2);
+            // added back by setContentType below
+            if (name.equalsIgnoreCase("Content-Type")) contentType = value;
+            else headerList.add(new Header(name, value));
+        }
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(status)
+                .setStatusLine("HTTP/1.1 " + status)
+                .setHeaders(new Headers(headerList))
+                .setBody(body);
+        if (contentType != null) builder.setContentType(contentType);
+        Response response = builder.build();
+        // built responses have no config, as(..) needs it to find the object mapper
+        ((RestAssuredResponseOptionsImpl<?>) response).setConfig(RestAssured.config());
+        return response;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static void skip(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        buffer.position(buffer.position() + length);
+    }
+}
@@ -0,0 +1,31 @@
+package framework.api.cassette;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Records the RestAssured calls to the cassette, or answers them from it when replaying.
+ */
+public class CassetteFilter implements Filter {
+
+    private final Cassette cassette;
+
+    public CassetteFilter(Cassette cassette) {
+        this.cassette = cassette;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        String key = Cassette.key(requestSpec.getMethod(), requestSpec.getURI(), requestSpec.getBody());
+        Response replayed = cassette.find(key);
+        if (replayed != null) return replayed;
+
+        Response response = ctx.next(requestSpec, responseSpec);
+        cassette.record(key, response);
+        return response;
+    }
+}
@@ -0,0 +1,9 @@
+package framework.api.cassette;
+
+public enum CassetteMode {
+    OFF,
+    // every exchange is appended to the cassette
+    RECORD,
+    // recorded exchanges are answered from the cassette, the rest go to the network
+    REPLAY
+}
@@ -0,0 +1,27 @@
+package framework.api.fixtures;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+/**
+ * Cleanup registry settings, cleanup.* in config.properties.
+ */
+@Data
+public class CleanupConfig {
+
+    private CleanupMode mode;
+    private int concurrency;
+    private double ratePerSecond;
+    private int intervalSeconds;
+    // in background mode, registered resources are only deleted once this old, the test may still use them
+    private int minAgeSeconds;
+
+    public CleanupConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        mode = CleanupMode.valueOf(readConfig.getPropValue("cleanup.mode", "background").toUpperCase());
+        concurrency = readConfig.getIntValue("cleanup.concurrency", 8);
+        ratePerSecond = readConfig.getDoubleValue("cleanup.ratePerSecond", 20);
+        intervalSeconds = readConfig.getIntValue("cleanup.intervalSeconds", 5);
+        minAgeSeconds = readConfig.getIntValue("cleanup.minAgeSeconds", 60);
+    }
+}
@@ -0,0 +1,13 @@
+package framework.api.fixtures;
+
+/**
+ * When {@link CleanupRegistry} deletes the registered resources.
+ */
+public enum CleanupMode {
+    // nothing is deleted
+    OFF,
+    // everything at the end of the run, while the suite shuts down
+    END,
+    // continuously while the tests run, the rest at the end
+    BACKGROUND
+}
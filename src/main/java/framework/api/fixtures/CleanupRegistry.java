@@ -0,0 +1,142 @@
+package framework.api.fixtures;
+
+import com.google.common.util.concurrent.RateLimiter;
+import framework.api.BulkOperation;
+import framework.api.BulkResult;
+import lombok.extern.log4j.Log4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Ids of resources created by the run, deleted in bulk instead of one DELETE per test: at the end of the run,
+ * or also in the background while tests run (see {@link CleanupMode}). Deletes are async, with at most
+ * {@code concurrency} in flight and paced to {@code ratePerSecond}, so the cleanup doesn't load the service
+ * more than the tests do.
+ */
+@Log4j
+@SuppressWarnings("UnstableApiUsage")
+public class CleanupRegistry {
+
+    private static final long HELD = Long.MAX_VALUE;
+
+    private final String name;
+    private final CleanupConfig config;
+    private final Function<String, CompletableFuture<?>> delete;
+    private final RateLimiter rateLimiter;
+    // id -> System.nanoTime() after which the background cleanup may delete it
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService background;
+
+    private final LongAdder registered = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public CleanupRegistry(String name, Function<String, CompletableFuture<?>> delete, CleanupConfig config) {
+        checkArgument(name != null && delete != null && config != null, "Parameters cant be null");
+        checkArgument(config.getConcurrency() > 0 && config.getRatePerSecond() > 0, "Concurrency and rate must be positive");
+        this.name = name;
+        this.delete = delete;
+        this.config = config;
+        this.rateLimiter = RateLimiter.create(config.getRatePerSecond());
+        if (config.getMode() == CleanupMode.BACKGROUND) {
+            background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cleanup-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+            background.scheduleWithFixedDelay(() -> drain(false), config.getIntervalSeconds(), config.getIntervalSeconds(), TimeUnit.SECONDS);
+        } else {
+            background = null;
+        }
+    }
+
+    /**
+     * A new resource, deleted at the end of the run or, in background mode, once it is minAgeSeconds old.
+     */
+    public void register(String id) {
+        if (config.getMode() == CleanupMode.OFF || id == null) return;
+        if (pending.put(id, System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getMinAgeSeconds())) == null) {
+            registered.increment();
+        }
+    }
+
+    /**
+     * Keeps a registered resource until {@link #release(String)} or the end of the run.
+     */
+    public void hold(String id) {
+        pending.replace(id, HELD);
+    }
+
+    /**
+     * Not needed anymore, deleted by the next background pass.
+     */
+    public void release(String id) {
+        pending.replace(id, System.nanoTime());
+    }
+
+    /**
+     * Already deleted, e.g. by the test itself.
+     */
+    public void forget(String id) {
+        pending.remove(id);
+    }
+
+    public CleanupStats getStats() {
+        return new CleanupStats(name, pending.size(), registered.sum(), deleted.sum(), failed.sum());
+    }
+
+    /**
+     * Stops the background cleanup and deletes everything still registered, waiting for the deletes. No test runs
+     * anymore, so the final drain is only bounded by the concurrency, not paced to the rate.
+     */
+    public void shutdown() {
+        if (background != null) {
+            background.shutdown();
+            try {
+                background.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        drain(true);
+    }
+
+    private synchronized void drain(boolean all) {
+        long now = System.nanoTime();
+        List<String> ids = new ArrayList<>();
+        pending.forEach((id, deletableAt) -> {
+            // removed before deleting so a concurrent release or forget can't bring it back
+            if ((all || deletableAt <= now) && pending.remove(id, deletableAt)) ids.add(id);
+        });
+        if (ids.isEmpty()) return;
+
+        try {
+            BulkOperation.run(ids.stream(), config.getConcurrency(), id -> {
+                if (!all) rateLimiter.acquire();
+                return delete.apply(id);
+            }).forEach(this::count);
+        } catch (RuntimeException e) {
+            log.info("Cleanup of " + name + " failed", e);
+        }
+    }
+
+    private void count(BulkResult<String, ?> result) {
+        if (result.isSuccess()) {
+            deleted.increment();
+        } else {
+            failed.increment();
+            log.info("Could not delete " + name + " " + result.getItem() + ": " + result.getError());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package framework.api.fixtures;
+
+import lombok.Value;
+
+@Value
+public class CleanupStats {
+
+    String name;
+    int pending;
+    long registered;
+    long deleted;
+    long failed;
+
+    @Override
+    public String toString() {
+        return String.format("Cleanup of %s: registered=%d, deleted=%d, failed=%d, pending=%d",
+                name, registered, deleted, failed, pending);
+    }
+}
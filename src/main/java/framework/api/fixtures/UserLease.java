@@ -0,0 +1,34 @@
+package framework.api.fixtures;
+
+import framework.api.requests.CreateUserRequest;
+import framework.api.responses.CreateUserResponse;
+import lombok.Getter;
+
+/**
+ * Exclusive use of a pooled user: it was handed to this lease only and never goes back to the pool,
+ * so the test can update or delete it freely. Closing it hands the user to the cleanup.
+ */
+@Getter
+public class UserLease implements AutoCloseable {
+
+    private final CreateUserRequest request;
+    private final CreateUserResponse user;
+    @Getter(lombok.AccessLevel.NONE)
+    private final CleanupRegistry cleanup;
+
+    UserLease(CreateUserRequest request, CreateUserResponse user, CleanupRegistry cleanup) {
+        this.request = request;
+        this.user = user;
+        this.cleanup = cleanup;
+    }
+
+    public String getId() {
+        return user.getId().toString();
+    }
+
+    @Override
+    public void close() {
+        // the user was changed by the test, it doesn't go back to the pool
+        cleanup.release(getId());
+    }
+}
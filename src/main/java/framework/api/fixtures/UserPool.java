@@ -0,0 +1,126 @@
+package framework.api.fixtures;
+
+import framework.api.UserService;
+import framework.api.requests.CreateUserRequest;
+import lombok.extern.log4j.Log4j;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Users created ahead of the tests that need one. When fewer than the low watermark are ready (or being
+ * created) the pool creates users in the background, with the async client, up to the high watermark.
+ * {@link #lease()} is then a queue poll instead of a POST, it only waits when the pool ran dry.
+ */
+@Log4j
+public class UserPool {
+
+    private final UserService userService;
+    private final UserPoolConfig config;
+    private final BlockingQueue<UserLease> ready = new LinkedBlockingQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder leased = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+
+    private int creating;
+    private volatile boolean closed;
+
+    public UserPool(UserService userService, UserPoolConfig config) {
+        checkArgument(config.getLowWatermark() >= 0 && config.getHighWatermark() >= Math.max(1, config.getLowWatermark()),
+                "Watermarks must be 0 <= low <= high and high > 0");
+        this.userService = userService;
+        this.config = config;
+    }
+
+    /**
+     * Starts filling the pool up to the high watermark without waiting for it.
+     */
+    public UserPool warmUp() {
+        replenish(config.getHighWatermark());
+        return this;
+    }
+
+    /**
+     * Hands out a ready user, exclusively: no other lease gets it.
+     */
+    public UserLease lease() {
+        checkState(!closed, "User pool is shut down");
+        UserLease lease = ready.poll();
+        if (lease == null) {
+            waited.increment();
+            replenish(config.getLowWatermark());
+            try {
+                lease = ready.poll(config.getLeaseTimeoutSeconds(), TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for a pooled user", e);
+            }
+            if (lease == null) {
+                throw new IllegalStateException("No pooled user after " + config.getLeaseTimeoutSeconds() + "s, " + getStats());
+            }
+        }
+        leased.increment();
+        replenish(config.getLowWatermark());
+        return lease;
+    }
+
+    public synchronized UserPoolStats getStats() {
+        return new UserPoolStats(ready.size(), creating, created.sum(), failed.sum(), leased.sum(), waited.sum());
+    }
+
+    /**
+     * Stops creating users, the ones not leased yet are left to the cleanup.
+     */
+    public void shutdown() {
+        closed = true;
+        ready.clear();
+    }
+
+    /**
+     * Creates users up to the high watermark when fewer than {@code threshold} are ready or being created.
+     */
+    private void replenish(int threshold) {
+        int missing;
+        synchronized (this) {
+            if (closed) return;
+            int available = ready.size() + creating;
+            // at least one even with a 0 low watermark, a waiting lease needs it
+            if (available >= Math.max(threshold, 1)) return;
+            missing = config.getHighWatermark() - available;
+            if (missing <= 0) return;
+            creating += missing;
+        }
+        for (int i = 0; i < missing; i++) create();
+    }
+
+    private void create() {
+        long id = sequence.incrementAndGet();
+        CreateUserRequest request = CreateUserRequest.builder()
+                .name("pooledUser" + id)
+                .job("pooledJob" + id)
+                .build();
+        userService.postUserAsync(request, 201).whenComplete((user, error) -> {
+            synchronized (this) {
+                creating--;
+            }
+            if (error != null) {
+                failed.increment();
+                log.info("Pooled user creation failed: " + error);
+                return;
+            }
+            created.increment();
+            // not deleted by the background cleanup while it waits in the pool
+            userService.getCleanup().hold(user.getId().toString());
+            if (!closed) ready.offer(new UserLease(request, user, userService.getCleanup()));
+        });
+    }
+}
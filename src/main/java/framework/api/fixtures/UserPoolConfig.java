@@ -0,0 +1,25 @@
+package framework.api.fixtures;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+/**
+ * Test user pool settings, user.pool.* in config.properties.
+ */
+@Data
+public class UserPoolConfig {
+
+    // below this many ready users the pool starts creating more...
+    private int lowWatermark;
+    // ...up to this many, counting the ones being created
+    private int highWatermark;
+    // how long a lease waits for a user when the pool is empty
+    private int leaseTimeoutSeconds;
+
+    public UserPoolConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        lowWatermark = readConfig.getIntValue("user.pool.lowWatermark", 2);
+        highWatermark = readConfig.getIntValue("user.pool.highWatermark", 8);
+        leaseTimeoutSeconds = readConfig.getIntValue("user.pool.leaseTimeoutSeconds", 30);
+    }
+}
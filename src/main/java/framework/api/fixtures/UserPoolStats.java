@@ -0,0 +1,21 @@
+package framework.api.fixtures;
+
+import lombok.Value;
+
+@Value
+public class UserPoolStats {
+
+    int ready;
+    int creating;
+    long created;
+    long failed;
+    long leased;
+    // leases that found the pool empty and had to wait for a creation
+    long waited;
+
+    @Override
+    public String toString() {
+        return String.format("User pool: ready=%d, creating=%d, created=%d, failed=%d, leased=%d (waited %d)",
+                ready, creating, created, failed, leased, waited);
+    }
+}
@@ -0,0 +1,276 @@
+package framework.api.http;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Shared limit on the calls sent to the server: a token bucket caps the rate and an AIMD concurrency limit
+ * finds the load the server sustains. Every call answered in time while the limit is in use raises it by
+ * 1/limit (about +1 per limit calls); a 429 or 503, or a call slower than latencyTolerance times its endpoint's
+ * baseline, multiplies it by backoffRatio, at most once per round of calls in flight. Retry-After of a 429/503
+ * also pauses the bucket. Callers over the limit wait in FIFO order, async ones without blocking a thread.
+ */
+public class AdaptiveLimiter {
+
+    // calls before an endpoint's baseline latency is trusted, the first ones include connecting
+    private static final int BASELINE_SAMPLES = 10;
+    // weight of a slower call in the baseline, lets it follow a server that got slower for good
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final RateLimitConfig config;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Deque<CompletableFuture<Permit>> waiting = new ArrayDeque<>();
+    private final Map<String, Baseline> baselines = new ConcurrentHashMap<>();
+
+    // guarded by this
+    private double limit;
+    private int inFlight;
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil;
+    private long lastDecreaseAt;
+    private boolean dispatchScheduled;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder decreases = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public AdaptiveLimiter(RateLimitConfig config) {
+        checkArgument(config.getMinConcurrency() > 0 && config.getMinConcurrency() <= config.getMaxConcurrency(),
+                "Concurrency bounds must be positive and min <= max");
+        checkArgument(config.getBackoffRatio() > 0 && config.getBackoffRatio() < 1, "Backoff ratio must be between 0 and 1");
+        this.config = config;
+        limit = Math.max(config.getMinConcurrency(), Math.min(config.getInitialConcurrency(), config.getMaxConcurrency()));
+        tokens = config.getBurst();
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "http-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Waits for a permit, see {@link #acquireAsync(String)}.
+     */
+    public Permit acquire(String endpoint) {
+        try {
+            return acquireAsync(endpoint).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IllegalStateException("No call permit after " + config.getAcquireTimeoutSeconds() + "s, " + getStats(), e.getCause());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Completes with a permit once the rate and the concurrency limit allow another call, exceptionally with a
+     * TimeoutException after acquireTimeoutSeconds. The permit must be released when the call completes.
+     *
+     * @param endpoint latencies are compared with the baseline of the same endpoint
+     */
+    public CompletableFuture<Permit> acquireAsync(String endpoint) {
+        CompletableFuture<Permit> permit = new CompletableFuture<>();
+        long start = System.nanoTime();
+        synchronized (this) {
+            waiting.add(permit);
+        }
+        dispatch();
+        if (!permit.isDone()) {
+            ScheduledFuture<?> timeout = timer.schedule(() -> permit.completeExceptionally(new TimeoutException()),
+                    config.getAcquireTimeoutSeconds(), TimeUnit.SECONDS);
+            permit.whenComplete((granted, error) -> timeout.cancel(false));
+        }
+        return permit.thenApply(granted -> {
+            waitNanos.add(System.nanoTime() - start);
+            return granted.forEndpoint(endpoint);
+        });
+    }
+
+    public RateLimitStats getStats() {
+        synchronized (this) {
+            long count = acquired.sum();
+            return new RateLimitStats((int) limit, inFlight, waiting.size(), count, throttled.sum(), decreases.sum(),
+                    count == 0 ? 0 : waitNanos.sum() / (double) count / 1_000_000);
+        }
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Hands out permits to the waiting callers while the limit and the bucket allow it, completing them outside the lock.
+     */
+    private void dispatch() {
+        List<CompletableFuture<Permit>> granted = new ArrayList<>();
+        List<Permit> permits = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            while (!waiting.isEmpty() && inFlight < (int) limit) {
+                if (waiting.peek().isDone()) {
+                    // timed out
+                    waiting.poll();
+                    continue;
+                }
+                long waitForToken = takeToken(now);
+                if (waitForToken > 0) {
+                    scheduleDispatch(waitForToken);
+                    break;
+                }
+                inFlight++;
+                granted.add(waiting.poll());
+                permits.add(new Permit(now, inFlight >= (int) limit));
+            }
+        }
+        for (int i = 0; i < granted.size(); i++) {
+            acquired.increment();
+            // lost the race with the timeout
+            if (!granted.get(i).complete(permits.get(i))) permits.get(i).cancel();
+        }
+    }
+
+    /**
+     * Takes a token, or returns the nanos until there is one.
+     */
+    private long takeToken(long now) {
+        if (now < pausedUntil) return pausedUntil - now;
+        if (config.getRatePerSecond() <= 0) return 0;
+        tokens = Math.min(config.getBurst(), tokens + (now - refilledAt) * config.getRatePerSecond() / 1e9);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens--;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / config.getRatePerSecond() * 1e9);
+    }
+
+    private void scheduleDispatch(long nanos) {
+        if (dispatchScheduled) return;
+        dispatchScheduled = true;
+        timer.schedule(() -> {
+            synchronized (this) {
+                dispatchScheduled = false;
+            }
+            dispatch();
+        }, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void released(Permit permit, int status, String retryAfter) {
+        long now = System.nanoTime();
+        long latency = now - permit.grantedAt;
+        boolean throttle = status == 429 || status == 503;
+        boolean slow = !throttle && status > 0 && status < 500 && isSlow(permit.endpoint, latency);
+        synchronized (this) {
+            inFlight--;
+            if (throttle || slow) {
+                // calls granted before the last cut were sent at the old limit, don't cut again for them
+                if (permit.grantedAt > lastDecreaseAt) {
+                    limit = Math.max(config.getMinConcurrency(), limit * config.getBackoffRatio());
+                    lastDecreaseAt = now;
+                    decreases.increment();
+                }
+                if (throttle) {
+                    throttled.increment();
+                    long pause = retryAfterNanos(retryAfter);
+                    if (pause > 0) pausedUntil = Math.max(pausedUntil, now + pause);
+                }
+            } else if (status > 0 && status < 500 && permit.saturated) {
+                limit = Math.min(config.getMaxConcurrency(), limit + 1 / limit);
+            }
+        }
+        dispatch();
+    }
+
+    private boolean isSlow(String endpoint, long latency) {
+        if (endpoint == null) return false;
+        Baseline baseline = baselines.computeIfAbsent(endpoint, key -> new Baseline());
+        synchronized (baseline) {
+            baseline.samples++;
+            if (baseline.nanos == 0 || latency < baseline.nanos) baseline.nanos = latency;
+            else baseline.nanos += (long) ((latency - baseline.nanos) * BASELINE_DRIFT);
+            return baseline.samples > BASELINE_SAMPLES && latency > baseline.nanos * config.getLatencyTolerance();
+        }
+    }
+
+    private static long retryAfterNanos(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) return 0;
+        try {
+            return TimeUnit.SECONDS.toNanos(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                long at = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, at - System.currentTimeMillis()));
+            } catch (DateTimeParseException ignored) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Right to send one call, released with its outcome exactly once.
+     */
+    public class Permit {
+
+        private final long grantedAt;
+        // granted while the limit was in use, only then does a good call raise it
+        private final boolean saturated;
+        private String endpoint;
+        private boolean released;
+
+        private Permit(long grantedAt, boolean saturated) {
+            this.grantedAt = grantedAt;
+            this.saturated = saturated;
+        }
+
+        private Permit forEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+            return this;
+        }
+
+        /**
+         * @param status     of the response
+         * @param retryAfter Retry-After header of the response, null when there's none
+         */
+        public void release(int status, String retryAfter) {
+            if (markReleased()) released(this, status, retryAfter);
+        }
+
+        /**
+         * The call failed without a response, it says nothing about the limit.
+         */
+        public void cancel() {
+            if (markReleased()) released(this, 0, null);
+        }
+
+        private synchronized boolean markReleased() {
+            if (released) return false;
+            released = true;
+            return true;
+        }
+    }
+
+    private static class Baseline {
+
+        int samples;
+        long nanos;
+    }
+}
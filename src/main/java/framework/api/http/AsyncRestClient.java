@@ -0,0 +1,230 @@
+package framework.api.http;
+
+import framework.api.ApiRequest;
+import framework.api.metrics.Phase;
+import framework.api.metrics.RequestTimer;
+import io.restassured.RestAssured;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.RestAssuredResponseOptionsImpl;
+import io.restassured.response.Response;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.DefaultThreadFactory;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non blocking HTTP client for {@link framework.api.RestCalls#sendAsync(ApiRequest)}.
+ * A couple of IO reactor threads drive every request, so one caller thread can keep hundreds of calls
+ * in flight. Over TLS HTTP/2 is negotiated when the server supports it, which multiplexes the calls over
+ * a single connection. Responses are handed to a separate pool of callback threads, so the stages callers
+ * chain on a future never hold up the IO reactor and the other calls in flight.
+ */
+public class AsyncRestClient {
+
+    private final CloseableHttpAsyncClient client;
+    private final ExecutorService callbacks;
+
+    public AsyncRestClient(HttpPoolConfig config) {
+        client = HttpAsyncClients.custom()
+                .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(config.getMaxTotal())
+                        .setMaxConnPerRoute(config.getMaxPerRoute())
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(config.getKeepAliveSeconds()))
+                        .build())
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(config.getAsyncIoThreads())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(config.getConnectTimeoutMillis()))
+                        .setResponseTimeout(Timeout.ofMilliseconds(config.getSocketTimeoutMillis()))
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(config.getLeaseTimeoutMillis()))
+                        .setDefaultKeepAlive(config.getKeepAliveSeconds(), TimeUnit.SECONDS)
+                        .build())
+                .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+                .setThreadFactory(new DefaultThreadFactory("async-rest", true))
+                // same as the RestAssured config, redirects are asserted not followed
+                .disableRedirectHandling()
+                .build();
+        client.start();
+        callbacks = Executors.newFixedThreadPool(config.getAsyncCallbackThreads(), new DefaultThreadFactory("async-rest-callback", true));
+    }
+
+    /**
+     * @param body already serialized request body, null for none
+     */
+    public CompletableFuture<Response> execute(ApiRequest request, String body) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        SimpleHttpRequest httpRequest;
+        try {
+            URIBuilder uri = new URIBuilder(request.getUrl());
+            for (Map.Entry<String, Object> param : request.getQueryParams().entrySet()) {
+                uri.addParameter(param.getKey(), String.valueOf(param.getValue()));
+            }
+            httpRequest = new SimpleHttpRequest(request.getMethod().name(), uri.build());
+        } catch (URISyntaxException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        request.getHeaders().forEach(httpRequest::addHeader);
+        if (body != null) {
+            httpRequest.setBody(body, ContentType.parse(request.getContentType().withCharset("UTF-8")));
+        }
+
+        RequestTimer timer = RequestTimer.detached(request.getEndpoint());
+        TimedResponseConsumer consumer = new TimedResponseConsumer(SimpleResponseConsumer.create(), timer);
+        client.execute(SimpleRequestProducer.create(httpRequest), consumer, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse result) {
+                consumer.bodyRead();
+                callback(() -> {
+                    // finishing on the thread that completes, deserializing in a dependent stage is timed for this call
+                    timer.finish(result.getCode() < 400);
+                    future.complete(toResponse(result));
+                });
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                callback(() -> {
+                    timer.finish(false);
+                    future.completeExceptionally(ex);
+                });
+            }
+
+            @Override
+            public void cancelled() {
+                callback(() -> {
+                    timer.finish(false);
+                    future.cancel(false);
+                });
+            }
+
+            private void callback(Runnable completion) {
+                try {
+                    callbacks.execute(completion);
+                } catch (RejectedExecutionException e) {
+                    // shut down while the call was in flight
+                    completion.run();
+                }
+            }
+        });
+        return future;
+    }
+
+    public void shutdown() {
+        client.close(CloseMode.GRACEFUL);
+        callbacks.shutdown();
+    }
+
+    /**
+     * Marks the TTFB phase when the response headers arrive, the pool does its leasing and connecting on
+     * the IO threads, so for async calls TTFB includes QUEUE and CONNECT.
+     */
+    private static class TimedResponseConsumer implements AsyncResponseConsumer<SimpleHttpResponse> {
+
+        private final AsyncResponseConsumer<SimpleHttpResponse> consumer;
+        private final RequestTimer timer;
+        private volatile long headersNanos;
+
+        TimedResponseConsumer(AsyncResponseConsumer<SimpleHttpResponse> consumer, RequestTimer timer) {
+            this.consumer = consumer;
+            this.timer = timer;
+        }
+
+        void bodyRead() {
+            if (headersNanos > 0) timer.phase(Phase.BODY, System.nanoTime() - headersNanos);
+        }
+
+        @Override
+        public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+                                    FutureCallback<SimpleHttpResponse> resultCallback) throws HttpException, IOException {
+            timer.phase(Phase.TTFB, timer.elapsedNanos());
+            headersNanos = System.nanoTime();
+            consumer.consumeResponse(response, entityDetails, context, resultCallback);
+        }
+
+        @Override
+        public void informationResponse(HttpResponse response, HttpContext context) throws HttpException, IOException {
+            consumer.informationResponse(response, context);
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            consumer.failed(cause);
+        }
+
+        @Override
+        public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+            consumer.updateCapacity(capacityChannel);
+        }
+
+        @Override
+        public void consume(ByteBuffer src) throws IOException {
+            consumer.consume(src);
+        }
+
+        @Override
+        public void streamEnd(List<? extends org.apache.hc.core5.http.Header> trailers) throws HttpException, IOException {
+            consumer.streamEnd(trailers);
+        }
+
+        @Override
+        public void releaseResources() {
+            consumer.releaseResources();
+        }
+    }
+
+    private static Response toResponse(SimpleHttpResponse result) {
+        List<Header> headers = new ArrayList<>();
+        for (org.apache.hc.core5.http.Header header : result.getHeaders()) {
+            // added back by setContentType below
+            if (!header.getName().equalsIgnoreCase("Content-Type")) {
+                headers.add(new Header(header.getName(), header.getValue()));
+            }
+        }
+        ResponseBuilder builder = new ResponseBuilder()
+                .setStatusCode(result.getCode())
+                .setStatusLine(result.getVersion() + " " + result.getCode() + " " + result.getReasonPhrase())
+                .setHeaders(new Headers(headers));
+        if (result.getContentType() != null) builder.setContentType(result.getContentType().toString());
+        byte[] body = result.getBodyBytes();
+        builder.setBody(body != null ? body : new byte[0]);
+        Response response = builder.build();
+        // built responses have no config, as(..) needs it to find the object mapper
+        ((RestAssuredResponseOptionsImpl<?>) response).setConfig(RestAssured.config());
+        return response;
+    }
+}
@@ -0,0 +1,236 @@
+package framework.api.http;
+
+import framework.api.metrics.Phase;
+import framework.api.metrics.RequestTimer;
+import io.restassured.config.HttpClientConfig;
+import lombok.extern.log4j.Log4j;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.params.HttpClientParams;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.PlainSocketFactory;
+import org.apache.http.conn.scheme.Scheme;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.conn.ssl.SSLSocketFactory;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.apache.http.ssl.SSLContexts;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocket;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Shared, keep-alive connection pool for RestAssured.
+ * RestAssured asks the factory for a client on every request, each one is a thin {@link DefaultHttpClient}
+ * on top of the same pooling connection manager, so connections (and TLS sessions) are reused across requests
+ * and threads while per request client state stays isolated.
+ */
+@Log4j
+@SuppressWarnings("deprecation")
+public class ConnectionPool implements HttpClientConfig.HttpClientFactory {
+
+    private final HttpPoolConfig config;
+    private final PoolingClientConnectionManager connectionManager;
+    private final ScheduledExecutorService evictor;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectNanos = new LongAdder();
+    private final LongAdder tlsHandshakes = new LongAdder();
+    private final LongAdder tlsResumedSessions = new LongAdder();
+
+    public ConnectionPool(HttpPoolConfig config) {
+        this.config = config;
+
+        SSLContext sslContext = SSLContexts.createDefault();
+        // one context for all connections so its session cache can resume TLS sessions
+        sslContext.getClientSessionContext().setSessionCacheSize(config.getTlsSessionCacheSize());
+        sslContext.getClientSessionContext().setSessionTimeout(config.getTlsSessionTimeoutSeconds());
+
+        SchemeRegistry schemeRegistry = new SchemeRegistry();
+        schemeRegistry.register(new Scheme("http", 80, new CountingPlainSocketFactory()));
+        schemeRegistry.register(new Scheme("https", 443, new CountingSslSocketFactory(sslContext)));
+
+        connectionManager = new TimedConnectionManager(schemeRegistry);
+        connectionManager.setMaxTotal(config.getMaxTotal());
+        connectionManager.setDefaultMaxPerRoute(config.getMaxPerRoute());
+        applyRouteLimits(config.getRouteLimits());
+
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "http-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> {
+            connectionManager.closeExpiredConnections();
+            connectionManager.closeIdleConnections(config.getIdleEvictSeconds(), TimeUnit.SECONDS);
+        }, config.getIdleEvictSeconds(), config.getIdleEvictSeconds(), TimeUnit.SECONDS);
+    }
+
+    @Override
+    public HttpClient createHttpClient() {
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager) {
+            @Override
+            protected HttpRequestExecutor createRequestExecutor() {
+                return new TimedRequestExecutor();
+            }
+        };
+        long maxKeepAliveMillis = TimeUnit.SECONDS.toMillis(config.getKeepAliveSeconds());
+        client.setKeepAliveStrategy((response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive < 0 ? maxKeepAliveMillis : Math.min(keepAlive, maxKeepAliveMillis);
+        });
+        HttpConnectionParams.setConnectionTimeout(client.getParams(), config.getConnectTimeoutMillis());
+        HttpConnectionParams.setSoTimeout(client.getParams(), config.getSocketTimeoutMillis());
+        // how long a request waits for a free pooled connection
+        HttpClientParams.setConnectionManagerTimeout(client.getParams(), config.getLeaseTimeoutMillis());
+        client.addRequestInterceptor((request, context) -> requests.increment());
+        return client;
+    }
+
+    public void setMaxPerRoute(String url, int max) {
+        checkArgument(url != null && max > 0, "url cant be null and max must be positive");
+        URI uri = URI.create(url);
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : secure ? 443 : 80;
+        connectionManager.setMaxPerRoute(new HttpRoute(new HttpHost(uri.getHost(), port, uri.getScheme()), null, secure), max);
+    }
+
+    public ConnectionPoolStats getStats() {
+        PoolStats total = connectionManager.getTotalStats();
+        long opened = connectionsOpened.sum();
+        return new ConnectionPoolStats(total.getLeased(), total.getAvailable(), total.getPending(), total.getMax(),
+                requests.sum(), opened, tlsHandshakes.sum(), tlsResumedSessions.sum(),
+                opened == 0 ? 0 : connectNanos.sum() / (double) opened / 1_000_000);
+    }
+
+    public void shutdown() {
+        evictor.shutdownNow();
+        connectionManager.shutdown();
+    }
+
+    private void applyRouteLimits(String routeLimits) {
+        if (routeLimits == null || routeLimits.trim().isEmpty()) return;
+        for (String routeLimit : routeLimits.split(";")) {
+            int separator = routeLimit.lastIndexOf('=');
+            checkArgument(separator > 0, "Route limit must look like <url>=<limit>: " + routeLimit);
+            setMaxPerRoute(routeLimit.substring(0, separator).trim(), Integer.parseInt(routeLimit.substring(separator + 1).trim()));
+        }
+    }
+
+    private void connected(long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        connectNanos.add(nanos);
+        connectionsOpened.increment();
+        RequestTimer.add(Phase.CONNECT, nanos);
+    }
+
+    /**
+     * Times the wait for a pooled connection as the QUEUE phase of the call.
+     */
+    private static class TimedConnectionManager extends PoolingClientConnectionManager {
+
+        TimedConnectionManager(SchemeRegistry schemeRegistry) {
+            super(schemeRegistry);
+        }
+
+        @Override
+        public ClientConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ClientConnectionRequest request = super.requestConnection(route, state);
+            return new ClientConnectionRequest() {
+                @Override
+                public ManagedClientConnection getConnection(long timeout, TimeUnit unit)
+                        throws InterruptedException, ConnectionPoolTimeoutException {
+                    long start = System.nanoTime();
+                    try {
+                        return request.getConnection(timeout, unit);
+                    } finally {
+                        RequestTimer.add(Phase.QUEUE, System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public void abortRequest() {
+                    request.abortRequest();
+                }
+            };
+        }
+    }
+
+    /**
+     * Times sending the request until the response headers are read as the TTFB phase of the call.
+     */
+    private static class TimedRequestExecutor extends HttpRequestExecutor {
+
+        @Override
+        public HttpResponse execute(HttpRequest request, HttpClientConnection conn, HttpContext context)
+                throws IOException, HttpException {
+            long start = System.nanoTime();
+            try {
+                return super.execute(request, conn, context);
+            } finally {
+                RequestTimer.add(Phase.TTFB, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private class CountingPlainSocketFactory extends PlainSocketFactory {
+
+        @Override
+        public Socket connectSocket(Socket socket, InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+                                    HttpParams params) throws IOException, ConnectTimeoutException {
+            long start = System.nanoTime();
+            Socket connected = super.connectSocket(socket, remoteAddress, localAddress, params);
+            connected(start);
+            return connected;
+        }
+    }
+
+    private class CountingSslSocketFactory extends SSLSocketFactory {
+
+        CountingSslSocketFactory(SSLContext sslContext) {
+            super(sslContext, SSLSocketFactory.BROWSER_COMPATIBLE_HOSTNAME_VERIFIER);
+        }
+
+        @Override
+        public Socket connectSocket(Socket socket, InetSocketAddress remoteAddress, InetSocketAddress localAddress,
+                                    HttpParams params) throws IOException, ConnectTimeoutException {
+            long startMillis = System.currentTimeMillis();
+            long start = System.nanoTime();
+            Socket connected = super.connectSocket(socket, remoteAddress, localAddress, params);
+            connected(start);
+            if (connected instanceof SSLSocket) {
+                SSLSession session = ((SSLSocket) connected).getSession();
+                tlsHandshakes.increment();
+                // a resumed session keeps the creation time of the handshake that created it
+                if (session.getCreationTime() < startMillis) tlsResumedSessions.increment();
+            }
+            return connected;
+        }
+    }
+}
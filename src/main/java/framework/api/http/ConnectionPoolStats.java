@@ -0,0 +1,38 @@
+package framework.api.http;
+
+import lombok.Value;
+
+/**
+ * Snapshot of the shared connection pool.
+ * Every request that didn't open a connection reused one, so {@link #getEstimatedSavedMillis()} is the
+ * number of reused requests multiplied by the average connect (TCP + TLS) time.
+ */
+@Value
+public class ConnectionPoolStats {
+
+    int leased;
+    int idle;
+    int pending;
+    int max;
+    long requests;
+    long connectionsOpened;
+    long tlsHandshakes;
+    long tlsResumedSessions;
+    double averageConnectMillis;
+
+    public long getReusedRequests() {
+        return Math.max(0, requests - connectionsOpened);
+    }
+
+    public long getEstimatedSavedMillis() {
+        return Math.round(getReusedRequests() * averageConnectMillis);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Connection pool: leased=%d, idle=%d, pending=%d, max=%d, requests=%d, connections opened=%d, " +
+                        "tls handshakes=%d (resumed %d), avg connect=%.1fms, reused=%d, estimated saved=%dms",
+                leased, idle, pending, max, requests, connectionsOpened, tlsHandshakes, tlsResumedSessions,
+                averageConnectMillis, getReusedRequests(), getEstimatedSavedMillis());
+    }
+}
@@ -0,0 +1,31 @@
+package framework.api.http;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+/**
+ * Request hedging settings, http.hedge.* in config.properties, see {@link HedgingPolicy}.
+ */
+@Data
+public class HedgeConfig {
+
+    private boolean enabled;
+    // latency percentile of the endpoint after which the duplicate is sent
+    private double percentile;
+    private int minDelayMillis;
+    // delay used until the endpoint has minSamples recorded latencies
+    private int initialDelayMillis;
+    private int minSamples;
+    // upper bound of hedged calls, so a slow server isn't sent (almost) twice the load
+    private double maxHedgedPercent;
+
+    public HedgeConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        enabled = readConfig.getBooleanValue("http.hedge.enabled", false);
+        percentile = readConfig.getDoubleValue("http.hedge.percentile", 95);
+        minDelayMillis = readConfig.getIntValue("http.hedge.minDelayMillis", 10);
+        initialDelayMillis = readConfig.getIntValue("http.hedge.initialDelayMillis", 1000);
+        minSamples = readConfig.getIntValue("http.hedge.minSamples", 20);
+        maxHedgedPercent = readConfig.getDoubleValue("http.hedge.maxHedgedPercent", 10);
+    }
+}
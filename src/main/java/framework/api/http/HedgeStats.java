@@ -0,0 +1,20 @@
+package framework.api.http;
+
+import lombok.Value;
+
+@Value
+public class HedgeStats {
+
+    // idempotent calls that could be hedged
+    long eligible;
+    // calls still running after the hedge delay, a duplicate was sent
+    long fired;
+    // hedged calls answered first by the duplicate
+    long won;
+
+    @Override
+    public String toString() {
+        return String.format("Hedging: eligible=%d, fired=%d (%.2f%%), won=%d (%.2f%% of fired)",
+                eligible, fired, eligible == 0 ? 0 : 100.0 * fired / eligible, won, fired == 0 ? 0 : 100.0 * won / fired);
+    }
+}
@@ -0,0 +1,152 @@
+package framework.api.http;
+
+import framework.api.ApiRequest;
+import framework.api.metrics.Phase;
+import framework.api.metrics.RequestLatencies;
+import io.restassured.http.Method;
+import io.restassured.response.Response;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedged requests: when an idempotent call hasn't answered within the given latency percentile of its endpoint
+ * (from {@link RequestLatencies}), one duplicate is sent and whichever answers first is used. Cuts the tail caused
+ * by the occasional slow server response for about (100 - percentile)% more calls, capped by maxHedgedPercent.
+ * The losing attempt isn't aborted, it completes in the background and its response is dropped. A 5xx answer
+ * counts as a failed attempt, so it only wins when the other attempt fails too.
+ */
+public class HedgingPolicy {
+
+    private static final Set<Method> IDEMPOTENT = EnumSet.of(Method.GET, Method.PUT, Method.DELETE, Method.HEAD, Method.OPTIONS);
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final HedgeConfig config;
+    private final ScheduledThreadPoolExecutor timer;
+    private final ExecutorService executor;
+    private final Map<String, Delay> delays = new ConcurrentHashMap<>();
+
+    private final LongAdder eligible = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder won = new LongAdder();
+
+    public HedgingPolicy(HedgeConfig config) {
+        this.config = config;
+        timer = new ScheduledThreadPoolExecutor(1, daemon("http-hedge-timer"));
+        // primaries finish first most of the time, the timeouts shouldn't pile up in the queue
+        timer.setRemoveOnCancelPolicy(true);
+        executor = Executors.newCachedThreadPool(daemon("http-hedge"));
+    }
+
+    public boolean applies(ApiRequest request) {
+        return config.isEnabled() && IDEMPOTENT.contains(request.getMethod());
+    }
+
+    /**
+     * Runs blocking attempts of a hedged call.
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Starts the call and, if it is still running after the endpoint's hedge delay, a duplicate of it.
+     * A failed attempt only fails the result when the other one fails too.
+     */
+    public CompletableFuture<Response> hedge(String endpoint, Supplier<CompletableFuture<Response>> attempt) {
+        eligible.increment();
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger attempts = new AtomicInteger(1);
+
+        CompletableFuture<Response> primary = attempt.get();
+        ScheduledFuture<?> hedgeTimeout = timer.schedule(() -> {
+            if (primary.isDone() || overBudget()) return;
+            // counted before the re-check: a primary failing from here on waits for the duplicate, one that failed
+            // in between may have completed the result already
+            attempts.incrementAndGet();
+            if (primary.isDone() && result.isDone()) return;
+            fired.increment();
+            complete(attempt.get(), result, failures, attempts, true);
+        }, delayNanos(endpoint), TimeUnit.NANOSECONDS);
+
+        complete(primary, result, failures, attempts, false);
+        result.whenComplete((value, error) -> hedgeTimeout.cancel(false));
+        return result;
+    }
+
+    public HedgeStats getStats() {
+        return new HedgeStats(eligible.sum(), fired.sum(), won.sum());
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void complete(CompletableFuture<Response> attempt, CompletableFuture<Response> result, AtomicInteger failures,
+                          AtomicInteger attempts, boolean duplicate) {
+        attempt.whenComplete((response, error) -> {
+            if (error == null && response.getStatusCode() < 500) {
+                if (result.complete(response) && duplicate) won.increment();
+            } else if (failures.incrementAndGet() >= attempts.get()) {
+                // the last one to fail, its error or 5xx response is the answer
+                if (error == null) result.complete(response);
+                else result.completeExceptionally(error);
+            }
+        });
+    }
+
+    private boolean overBudget() {
+        return fired.sum() >= eligible.sum() * config.getMaxHedgedPercent() / 100;
+    }
+
+    private long delayNanos(String endpoint) {
+        long now = System.nanoTime();
+        Delay delay = delays.get(endpoint);
+        if (delay == null || now - delay.computedAt > DELAY_REFRESH_NANOS) {
+            delay = new Delay(computeDelayNanos(endpoint), now);
+            delays.put(endpoint, delay);
+        }
+        return delay.nanos;
+    }
+
+    private long computeDelayNanos(String endpoint) {
+        if (RequestLatencies.getCount(endpoint, Phase.TOTAL) < config.getMinSamples()) {
+            return TimeUnit.MILLISECONDS.toNanos(config.getInitialDelayMillis());
+        }
+        double millis = RequestLatencies.getPercentileMillis(endpoint, Phase.TOTAL, config.getPercentile());
+        return (long) (Math.max(millis, config.getMinDelayMillis()) * 1_000_000);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static class Delay {
+
+        final long nanos;
+        final long computedAt;
+
+        Delay(long nanos, long computedAt) {
+            this.nanos = nanos;
+            this.computedAt = computedAt;
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package framework.api.http;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import io.restassured.RestAssured;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.internal.RestAssuredResponseOptionsImpl;
+import io.restassured.response.Response;
+
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Private in memory cache of GET responses, following Cache-Control (max-age, no-cache, no-store), Expires and Vary.
+ * Fresh entries are answered without a call, stale ones with an ETag or Last-Modified are revalidated with
+ * If-None-Match / If-Modified-Since and a 304 is answered with the cached body. A successful PUT, POST, PATCH or
+ * DELETE removes the entry of its uri and of its Location and Content-Location (RFC 7234 4.4), so a test reads
+ * back its own writes.
+ * Entries are weighed by their size and the least recently used ones evicted past the limit. Lookups don't lock,
+ * so concurrent readers of the same entry don't wait for each other.
+ */
+public class HttpCache {
+
+    private static final String[] CONDITIONAL_HEADERS = {"If-None-Match", "If-Modified-Since", "If-Match", "If-Unmodified-Since", "If-Range"};
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final HttpCacheConfig config;
+    private final Cache<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public HttpCache(HttpCacheConfig config) {
+        this.config = config;
+        entries = CacheBuilder.newBuilder()
+                .maximumWeight(config.getMaxBytes())
+                .weigher((String uri, Entry entry) -> entry.weight(uri))
+                .removalListener(removal -> {
+                    if (removal.getCause() == RemovalCause.SIZE) evictions.increment();
+                })
+                .build();
+    }
+
+    /**
+     * What to do before sending a call, null when it bypasses the cache: a safe method other than GET,
+     * Cache-Control no-store or a conditional request of its own. Calls of unsafe methods are never answered
+     * from the cache, their lookup invalidates the uri once {@link #complete} sees a non error response.
+     *
+     * @param requestHeader value of a request header by name, case insensitive
+     */
+    public Lookup lookup(String method, String uri, Function<String, String> requestHeader) {
+        if (!SAFE_METHODS.contains(method.toUpperCase())) return new Lookup(uri, requestHeader, null, false, true);
+        if (!"GET".equalsIgnoreCase(method)) return null;
+        for (String conditional : CONDITIONAL_HEADERS) {
+            if (requestHeader.apply(conditional) != null) return null;
+        }
+        CacheControl requestControl = CacheControl.parse(requestHeader.apply("Cache-Control"));
+        if (requestControl.noStore) return null;
+
+        Entry entry = entries.getIfPresent(uri);
+        if (entry != null && !entry.varyMatches(requestHeader)) entry = null;
+        if (entry == null) {
+            misses.increment();
+            return new Lookup(uri, requestHeader, null, false, false);
+        }
+        boolean fresh = !requestControl.noCache && requestControl.maxAge != 0 && entry.isFresh(System.currentTimeMillis());
+        if (fresh) {
+            hits.increment();
+            savedBytes.add(entry.body.length);
+        } else if (entry.validators().isEmpty()) {
+            misses.increment();
+            return new Lookup(uri, requestHeader, null, false, false);
+        } else {
+            revalidations.increment();
+        }
+        return new Lookup(uri, requestHeader, entry, fresh, false);
+    }
+
+    /**
+     * Stores a cacheable response of the call, or answers a 304 of a revalidation with the cached body.
+     * For unsafe methods invalidates what the call changed.
+     *
+     * @return the response to hand to the caller
+     */
+    public Response complete(Lookup lookup, Response response) {
+        if (lookup.invalidating) {
+            if (response.getStatusCode() < 400) {
+                invalidate(lookup.uri);
+                invalidate(lookup.uri, response.getHeader("Location"));
+                invalidate(lookup.uri, response.getHeader("Content-Location"));
+            }
+            return response;
+        }
+        if (lookup.entry != null && response.getStatusCode() == 304) {
+            notModified.increment();
+            savedBytes.add(lookup.entry.body.length);
+            // headers of the 304 replace the stored ones, the freshness starts over
+            Map<String, String> headers = new LinkedHashMap<>(lookup.entry.headers);
+            response.getHeaders().forEach(header -> headers.put(header.getName(), header.getValue()));
+            headers.remove("Content-Length");
+            Entry refreshed = store(lookup, headers, lookup.entry.contentType, lookup.entry.body);
+            return (refreshed != null ? refreshed : lookup.entry).toResponse();
+        }
+        if (response.getStatusCode() == 200) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            response.getHeaders().forEach(header -> headers.put(header.getName(), header.getValue()));
+            store(lookup, headers, response.getContentType(), response.asByteArray());
+        } else if (lookup.entry != null) {
+            entries.asMap().remove(lookup.uri, lookup.entry);
+        }
+        return response;
+    }
+
+    public HttpCacheStats getStats() {
+        return new HttpCacheStats(hits.sum(), misses.sum(), revalidations.sum(), notModified.sum(), savedBytes.sum(),
+                evictions.sum(), invalidations.sum(), entries.size());
+    }
+
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private void invalidate(String uri) {
+        if (entries.asMap().remove(uri) != null) invalidations.increment();
+    }
+
+    /**
+     * Invalidates a Location or Content-Location of the response, only on the same host as the call like the RFC asks.
+     */
+    private void invalidate(String uri, String location) {
+        if (location == null || location.trim().isEmpty()) return;
+        try {
+            URI base = URI.create(uri);
+            URI target = base.resolve(location.trim());
+            if (Objects.equals(base.getHost(), target.getHost()) && base.getPort() == target.getPort()) invalidate(target.toString());
+        } catch (IllegalArgumentException e) {
+            // not a uri, nothing cached under it
+        }
+    }
+
+    private Entry store(Lookup lookup, Map<String, String> headers, String contentType, byte[] body) {
+        CacheControl control = CacheControl.parse(header(headers, "Cache-Control"));
+        String vary = header(headers, "Vary");
+        if (control.noStore || "*".equals(vary) || body.length > config.getMaxEntryBytes()) {
+            entries.invalidate(lookup.uri);
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        long freshUntil = now + freshnessMillis(control, headers);
+        Map<String, String> varyValues = new LinkedHashMap<>();
+        if (vary != null) {
+            for (String name : vary.split(",")) {
+                if (!name.trim().isEmpty()) varyValues.put(name.trim(), lookup.requestHeader.apply(name.trim()));
+            }
+        }
+        Entry entry = new Entry(headers, contentType, body, freshUntil, varyValues);
+        if (freshUntil <= now && entry.validators().isEmpty()) {
+            // would be a miss on every use
+            entries.invalidate(lookup.uri);
+            return null;
+        }
+        entries.put(lookup.uri, entry);
+        return entry;
+    }
+
+    private long freshnessMillis(CacheControl control, Map<String, String> headers) {
+        if (control.noCache) return 0;
+        long age = parseLong(header(headers, "Age"), 0);
+        if (control.maxAge >= 0) return TimeUnit.SECONDS.toMillis(control.maxAge - age);
+        String expires = header(headers, "Expires");
+        if (expires != null) {
+            long expiresAt = parseDate(expires);
+            long date = parseDate(header(headers, "Date"));
+            // unparseable dates, e.g. "0", mean already expired
+            if (expiresAt < 0) return 0;
+            return expiresAt - (date < 0 ? System.currentTimeMillis() : date);
+        }
+        return TimeUnit.SECONDS.toMillis(config.getDefaultTtlSeconds());
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) return header.getValue();
+        }
+        return null;
+    }
+
+    private static long parseDate(String date) {
+        if (date == null) return -1;
+        try {
+            return ZonedDateTime.parse(date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Result of {@link #lookup}, either a fresh cached response or the validators to send with the call.
+     */
+    public static class Lookup {
+
+        private final String uri;
+        private final Function<String, String> requestHeader;
+        private final Entry entry;
+        private final boolean fresh;
+        // call of an unsafe method, completing it invalidates instead of storing
+        private final boolean invalidating;
+
+        private Lookup(String uri, Function<String, String> requestHeader, Entry entry, boolean fresh, boolean invalidating) {
+            this.uri = uri;
+            this.requestHeader = requestHeader;
+            this.entry = entry;
+            this.fresh = fresh;
+            this.invalidating = invalidating;
+        }
+
+        public boolean isFresh() {
+            return fresh;
+        }
+
+        /**
+         * A new response with the cached status, headers and body, only for fresh lookups.
+         */
+        public Response getResponse() {
+            return fresh ? entry.toResponse() : null;
+        }
+
+        /**
+         * If-None-Match and If-Modified-Since of the stale entry, empty when there's none.
+         */
+        public Map<String, String> getConditionalHeaders() {
+            return entry == null || fresh ? Collections.emptyMap() : entry.validators();
+        }
+    }
+
+    private static class Entry {
+
+        private final Map<String, String> headers;
+        private final String contentType;
+        private final byte[] body;
+        private final long freshUntil;
+        private final Map<String, String> varyValues;
+
+        Entry(Map<String, String> headers, String contentType, byte[] body, long freshUntil, Map<String, String> varyValues) {
+            this.headers = headers;
+            this.contentType = contentType;
+            this.body = body;
+            this.freshUntil = freshUntil;
+            this.varyValues = varyValues;
+        }
+
+        boolean isFresh(long now) {
+            return now < freshUntil;
+        }
+
+        boolean varyMatches(Function<String, String> requestHeader) {
+            for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+                String value = requestHeader.apply(vary.getKey());
+                if (value == null ? vary.getValue() != null : !value.equals(vary.getValue())) return false;
+            }
+            return true;
+        }
+
+        Map<String, String> validators() {
+            Map<String, String> validators = new LinkedHashMap<>();
+            String etag = header(headers, "ETag");
+            String lastModified = header(headers, "Last-Modified");
+            if (etag != null) validators.put("If-None-Match", etag);
+            if (lastModified != null) validators.put("If-Modified-Since", lastModified);
+            return validators;
+        }
+
+        int weight(String uri) {
+            int weight = body.length + uri.length();
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                weight += header.getKey().length() + header.getValue().length();
+            }
+            return weight;
+        }
+
+        Response toResponse() {
+            List<Header> headerList = new ArrayList<>();
+            headers.forEach((name, value) -> {
+                // added back by setContentType below
+                if (!name.equalsIgnoreCase("Content-Type")) headerList.add(new Header(name, value));
+            });
+            ResponseBuilder builder = new ResponseBuilder()
+                    .setStatusCode(200)
+                    .setStatusLine("HTTP/1.1 200 OK")
+                    .setHeaders(new Headers(headerList))
+                    .setBody(body);
+            if (contentType != null && !contentType.isEmpty()) builder.setContentType(contentType);
+            Response response = builder.build();
+            // built responses have no config, as(..) needs it to find the object mapper
+            ((RestAssuredResponseOptionsImpl<?>) response).setConfig(RestAssured.config());
+            return response;
+        }
+    }
+
+    private static class CacheControl {
+
+        boolean noStore;
+        boolean noCache;
+        // -1 when absent
+        long maxAge = -1;
+
+        static CacheControl parse(String header) {
+            CacheControl control = new CacheControl();
+            if (header == null) return control;
+            for (String directive : header.split(",")) {
+                String name = directive.trim().toLowerCase();
+                if (name.equals("no-store")) control.noStore = true;
+                else if (name.equals("no-cache")) control.noCache = true;
+                else if (name.startsWith("max-age=")) control.maxAge = Math.max(0, parseLong(name.substring(8).replace("\"", ""), 0));
+            }
+            return control;
+        }
+    }
+}
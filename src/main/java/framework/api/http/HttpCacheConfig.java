@@ -0,0 +1,27 @@
+package framework.api.http;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+/**
+ * Response cache settings, http.cache.* in config.properties, see {@link HttpCache}.
+ */
+@Data
+public class HttpCacheConfig {
+
+    private boolean enabled;
+    // bodies and headers of all entries, least recently used ones are evicted above it
+    private long maxBytes;
+    // responses bigger than this aren't stored
+    private int maxEntryBytes;
+    // freshness of responses without Cache-Control max-age or Expires, 0 revalidates them on every use
+    private int defaultTtlSeconds;
+
+    public HttpCacheConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        enabled = readConfig.getBooleanValue("http.cache.enabled", false);
+        maxBytes = readConfig.getLongValue("http.cache.maxKilobytes", 16384) * 1024;
+        maxEntryBytes = readConfig.getIntValue("http.cache.maxEntryKilobytes", 1024) * 1024;
+        defaultTtlSeconds = readConfig.getIntValue("http.cache.defaultTtlSeconds", 0);
+    }
+}
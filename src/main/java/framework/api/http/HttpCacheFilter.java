@@ -0,0 +1,32 @@
+package framework.api.http;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+/**
+ * Answers the RestAssured GET calls from the {@link HttpCache} or revalidates them, and stores their responses.
+ * The other calls go through {@link HttpCache#complete} too, a successful write invalidates what it changed.
+ * Runs before {@link ReleaseConnectionFilter}, so the body is read by the time it is stored.
+ */
+public class HttpCacheFilter implements Filter {
+
+    private final HttpCache cache;
+
+    public HttpCacheFilter(HttpCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        HttpCache.Lookup lookup = cache.lookup(requestSpec.getMethod(), requestSpec.getURI(), requestSpec.getHeaders()::getValue);
+        if (lookup == null) return ctx.next(requestSpec, responseSpec);
+        if (lookup.isFresh()) return lookup.getResponse();
+
+        lookup.getConditionalHeaders().forEach(requestSpec::header);
+        return cache.complete(lookup, ctx.next(requestSpec, responseSpec));
+    }
+}
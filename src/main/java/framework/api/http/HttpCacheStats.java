@@ -0,0 +1,30 @@
+package framework.api.http;
+
+import lombok.Value;
+
+@Value
+public class HttpCacheStats {
+
+    // answered from the cache without a call
+    long hits;
+    // not in the cache, or stale without a validator to revalidate it
+    long misses;
+    // stale entries sent as conditional requests
+    long revalidations;
+    // revalidations answered 304, the body came from the cache
+    long notModified;
+    // bodies not downloaded thanks to hits and 304s
+    long savedBytes;
+    long evictions;
+    // entries removed by a successful PUT, POST, PATCH or DELETE
+    long invalidations;
+    long entries;
+
+    @Override
+    public String toString() {
+        long lookups = hits + misses + revalidations;
+        return String.format("Http cache: hits=%d (%.2f%%), misses=%d, revalidations=%d (%d not modified), saved=%dKB, evictions=%d, invalidations=%d, entries=%d",
+                hits, lookups == 0 ? 0 : 100.0 * hits / lookups, misses, revalidations, notModified, savedBytes / 1024,
+                evictions, invalidations, entries);
+    }
+}
@@ -0,0 +1,42 @@
+package framework.api.http;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+/**
+ * Connection pool settings of the blocking and async clients, http.pool.* and http.async.* in config.properties.
+ */
+@Data
+public class HttpPoolConfig {
+
+    private int maxTotal;
+    private int maxPerRoute;
+    // semicolon separated list of <scheme>://<host>[:port]=<limit>
+    private String routeLimits;
+    private int connectTimeoutMillis;
+    private int socketTimeoutMillis;
+    private int leaseTimeoutMillis;
+    private int keepAliveSeconds;
+    private int idleEvictSeconds;
+    private int tlsSessionCacheSize;
+    private int tlsSessionTimeoutSeconds;
+    private int asyncIoThreads;
+    // run what callers chain on async responses, kept off the IO reactor threads
+    private int asyncCallbackThreads;
+
+    public HttpPoolConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        maxTotal = readConfig.getIntValue("http.pool.maxTotal", 200);
+        maxPerRoute = readConfig.getIntValue("http.pool.maxPerRoute", 50);
+        routeLimits = readConfig.getPropValue("http.pool.routeLimits", null);
+        connectTimeoutMillis = readConfig.getIntValue("http.pool.connectTimeoutMillis", 10000);
+        socketTimeoutMillis = readConfig.getIntValue("http.pool.socketTimeoutMillis", 60000);
+        leaseTimeoutMillis = readConfig.getIntValue("http.pool.leaseTimeoutMillis", 30000);
+        keepAliveSeconds = readConfig.getIntValue("http.pool.keepAliveSeconds", 30);
+        idleEvictSeconds = readConfig.getIntValue("http.pool.idleEvictSeconds", 60);
+        tlsSessionCacheSize = readConfig.getIntValue("http.pool.tlsSessionCacheSize", 1000);
+        tlsSessionTimeoutSeconds = readConfig.getIntValue("http.pool.tlsSessionTimeoutSeconds", 3600);
+        asyncIoThreads = readConfig.getIntValue("http.async.ioThreads", Runtime.getRuntime().availableProcessors());
+        asyncCallbackThreads = readConfig.getIntValue("http.async.callbackThreads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+}
@@ -0,0 +1,38 @@
+package framework.api.http;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+/**
+ * Adaptive rate limiter settings, http.limit.* in config.properties.
+ */
+@Data
+public class RateLimitConfig {
+
+    private boolean enabled;
+    // token bucket refill, 0 for no rate cap
+    private double ratePerSecond;
+    // tokens the bucket holds, calls allowed in a burst after an idle time
+    private int burst;
+    private int initialConcurrency;
+    private int minConcurrency;
+    private int maxConcurrency;
+    // a call slower than this many times its endpoint's baseline latency counts as congestion
+    private double latencyTolerance;
+    // the concurrency limit is multiplied by it on congestion, 429 or 503
+    private double backoffRatio;
+    private int acquireTimeoutSeconds;
+
+    public RateLimitConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        enabled = readConfig.getBooleanValue("http.limit.enabled", false);
+        ratePerSecond = readConfig.getDoubleValue("http.limit.ratePerSecond", 0);
+        burst = readConfig.getIntValue("http.limit.burst", 10);
+        initialConcurrency = readConfig.getIntValue("http.limit.initialConcurrency", 8);
+        minConcurrency = readConfig.getIntValue("http.limit.minConcurrency", 1);
+        maxConcurrency = readConfig.getIntValue("http.limit.maxConcurrency", 200);
+        latencyTolerance = readConfig.getDoubleValue("http.limit.latencyTolerance", 3);
+        backoffRatio = readConfig.getDoubleValue("http.limit.backoffRatio", 0.7);
+        acquireTimeoutSeconds = readConfig.getIntValue("http.limit.acquireTimeoutSeconds", 60);
+    }
+}
@@ -0,0 +1,48 @@
+package framework.api.http;
+
+import framework.api.metrics.Phase;
+import framework.api.metrics.RequestTimer;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.net.URI;
+
+/**
+ * Holds a permit of the {@link AdaptiveLimiter} for the duration of every RestAssured call, the wait is timed
+ * as the QUEUE phase of the call. Calls are limited per endpoint template, the one of the call's {@link RequestTimer}
+ * like the async calls and the latency metrics, so all ids of "PUT api/users/%s" share one limit and baseline.
+ */
+public class RateLimitFilter implements Filter {
+
+    private final AdaptiveLimiter limiter;
+
+    public RateLimitFilter(AdaptiveLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        long start = System.nanoTime();
+        AdaptiveLimiter.Permit permit = limiter.acquire(endpoint(requestSpec));
+        RequestTimer.add(Phase.QUEUE, System.nanoTime() - start);
+        Response response;
+        try {
+            response = ctx.next(requestSpec, responseSpec);
+        } catch (RuntimeException | Error e) {
+            permit.cancel();
+            throw e;
+        }
+        permit.release(response.getStatusCode(), response.getHeader("Retry-After"));
+        return response;
+    }
+
+    private static String endpoint(FilterableRequestSpecification requestSpec) {
+        RequestTimer timer = RequestTimer.current();
+        // calls not sent through RestCalls.send have no template, they're grouped by url path like their timings
+        return timer != null ? timer.getEndpoint() : requestSpec.getMethod() + " " + URI.create(requestSpec.getURI()).getPath();
+    }
+}
@@ -0,0 +1,24 @@
+package framework.api.http;
+
+import lombok.Value;
+
+@Value
+public class RateLimitStats {
+
+    // current concurrency limit
+    int limit;
+    int inFlight;
+    int waiting;
+    long acquired;
+    // 429 and 503 responses
+    long throttled;
+    // times the limit was cut, by throttling or by latency
+    long decreases;
+    double avgWaitMillis;
+
+    @Override
+    public String toString() {
+        return String.format("Rate limiter: limit=%d, inFlight=%d, waiting=%d, acquired=%d, throttled=%d, decreases=%d, avgWait=%.2fms",
+                limit, inFlight, waiting, acquired, throttled, decreases, avgWaitMillis);
+    }
+}
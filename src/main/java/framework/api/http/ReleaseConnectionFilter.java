@@ -0,0 +1,47 @@
+package framework.api.http;
+
+import framework.api.metrics.Phase;
+import framework.api.metrics.RequestTimer;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+
+import java.net.URI;
+
+/**
+ * RestAssured only reads the body when a test asks for it, until then the pooled connection stays leased.
+ * Reading it here buffers the body in the response and hands the connection back to the pool straight away.
+ * It is also where the BODY phase is timed, and where calls not sent through {@code RestCalls.send} get
+ * their timer, grouped by method and url path.
+ */
+public class ReleaseConnectionFilter implements Filter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        RequestTimer timer = RequestTimer.current();
+        if (timer != null) return readBody(requestSpec, responseSpec, ctx);
+
+        timer = RequestTimer.start(requestSpec.getMethod() + " " + URI.create(requestSpec.getURI()).getPath());
+        Response response;
+        try {
+            response = readBody(requestSpec, responseSpec, ctx);
+        } catch (RuntimeException e) {
+            timer.finish(false);
+            throw e;
+        }
+        timer.finish(response.getStatusCode() < 400);
+        return response;
+    }
+
+    private static Response readBody(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                                     FilterContext ctx) {
+        Response response = ctx.next(requestSpec, responseSpec);
+        long start = System.nanoTime();
+        response.asByteArray();
+        RequestTimer.add(Phase.BODY, System.nanoTime() - start);
+        return response;
+    }
+}
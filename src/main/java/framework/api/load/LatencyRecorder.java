@@ -0,0 +1,94 @@
+package framework.api.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per step HDR histograms (microsecond precision, 3 significant digits) and error counters, safe to record from
+ * any thread.
+ */
+public class LatencyRecorder {
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    // keeps the steps in the order they were first recorded
+    private final List<String> steps = new ArrayList<>();
+
+    public <T> CompletableFuture<T> time(String step, Supplier<CompletableFuture<T>> call) {
+        return time(step, System.nanoTime(), call);
+    }
+
+    /**
+     * Times the call from {@code startNanos}, which may be earlier than now when the call was due before it could start.
+     */
+    public <T> CompletableFuture<T> time(String step, long startNanos, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, error) -> record(step, System.nanoTime() - startNanos, error == null));
+    }
+
+    public void record(String step, long latencyNanos, boolean success) {
+        histogram(step).recordValue(Math.max(1, latencyNanos / 1000));
+        if (!success) errors.get(step).increment();
+    }
+
+    public List<StepStats> getStats() {
+        List<StepStats> stats = new ArrayList<>();
+        List<String> recordedSteps;
+        synchronized (steps) {
+            recordedSteps = new ArrayList<>(steps);
+        }
+        for (String step : recordedSteps) {
+            Histogram histogram = histograms.get(step).copy();
+            stats.add(new StepStats(step, histogram.getTotalCount(), errors.get(step).sum(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())));
+        }
+        return stats;
+    }
+
+    /**
+     * Latency in ms at the percentile, 0 when the step wasn't recorded.
+     */
+    public double getPercentileMillis(String step, double percentile) {
+        Histogram histogram = histograms.get(step);
+        return histogram == null ? 0 : millis(histogram.copy().getValueAtPercentile(percentile));
+    }
+
+    /**
+     * Recorded values of the step, 0 when the step wasn't recorded.
+     */
+    public long getCount(String step) {
+        Histogram histogram = histograms.get(step);
+        return histogram == null ? 0 : histogram.getTotalCount();
+    }
+
+    private Histogram histogram(String step) {
+        Histogram histogram = histograms.get(step);
+        if (histogram != null) return histogram;
+        synchronized (steps) {
+            return histograms.computeIfAbsent(step, key -> {
+                errors.put(key, new LongAdder());
+                steps.add(key);
+                return new ConcurrentHistogram(3);
+            });
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
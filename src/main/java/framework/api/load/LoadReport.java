@@ -0,0 +1,47 @@
+package framework.api.load;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of an {@link OpenLoadGenerator} run.
+ * Achieved rate is over the scheduling window, without the final drain.
+ * Scenarios are dropped when {@code maxInFlight} was reached at their start time, they have no latency in the
+ * steps and count as errors in {@link #getErrorRate()}.
+ */
+@Value
+public class LoadReport {
+
+    double targetRate;
+    long scheduled;
+    long dropped;
+    double elapsedSeconds;
+    List<StepStats> steps;
+
+    public double getAchievedRate() {
+        return elapsedSeconds == 0 ? 0 : (scheduled - dropped) / elapsedSeconds;
+    }
+
+    /**
+     * Failed and dropped scenarios over the scheduled ones.
+     */
+    public double getErrorRate() {
+        StepStats scenario = getStep(OpenLoadGenerator.SCENARIO);
+        long errors = (scenario == null ? 0 : scenario.getErrors()) + dropped;
+        return scheduled == 0 ? 0 : errors / (double) scheduled;
+    }
+
+    public StepStats getStep(String step) {
+        return steps.stream().filter(stats -> stats.getStep().equals(step)).findFirst().orElse(null);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Open model load: target=%.1f/s achieved=%.1f/s scheduled=%d dropped=%d errors=%.2f%% elapsed=%.1fs",
+                targetRate, getAchievedRate(), scheduled, dropped, getErrorRate() * 100, elapsedSeconds));
+        steps.forEach(step -> report.append("\n  ").append(step));
+        return report.toString();
+    }
+}
@@ -0,0 +1,16 @@
+package framework.api.load;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One scenario run of a load test. It must not block, the returned future completes when the last step does.
+ */
+@FunctionalInterface
+public interface LoadScenario {
+
+    /**
+     * @param intendedStartNanos {@link System#nanoTime()} at which the schedule wanted this run to start,
+     *                           latencies of the first step should be measured from it
+     */
+    CompletableFuture<?> start(long intendedStartNanos);
+}
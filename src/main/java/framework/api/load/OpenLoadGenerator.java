@@ -0,0 +1,82 @@
+package framework.api.load;
+
+import lombok.extern.log4j.Log4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Open workload model: scenarios start on a fixed schedule whether or not earlier ones finished, so a slow
+ * server gets more concurrent load instead of fewer requests. Each run gets its intended start time, and the
+ * whole scenario is timed from it, which keeps generator hiccups and queueing in the numbers
+ * (no coordinated omission).
+ */
+@Log4j
+public class OpenLoadGenerator {
+
+    public static final String SCENARIO = "scenario";
+
+    private final double ratePerSecond;
+    private final Duration duration;
+    private final int maxInFlight;
+    private final Duration drainTimeout;
+
+    public OpenLoadGenerator(double ratePerSecond, Duration duration, int maxInFlight, Duration drainTimeout) {
+        checkArgument(ratePerSecond > 0 && maxInFlight > 0, "Rate and max in flight must be positive");
+        checkArgument(duration != null && drainTimeout != null, "Durations cant be null");
+        this.ratePerSecond = ratePerSecond;
+        this.duration = duration;
+        this.maxInFlight = maxInFlight;
+        this.drainTimeout = drainTimeout;
+    }
+
+    /**
+     * Runs the scenario at the target rate on the calling thread and waits for the in flight ones to finish.
+     * Step latencies recorded by the scenario end up in the same report.
+     */
+    public LoadReport run(LoadScenario scenario, LatencyRecorder recorder) {
+        long total = (long) Math.ceil(ratePerSecond * duration.toNanos() / 1e9);
+        double intervalNanos = 1e9 / ratePerSecond;
+        AtomicInteger inFlight = new AtomicInteger();
+        long dropped = 0;
+
+        log.info(String.format("Starting %d scenarios at %.1f/s", total, ratePerSecond));
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long intendedStart = start + (long) (i * intervalNanos);
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            if (inFlight.get() >= maxInFlight) {
+                // never ran, a latency for it would pull the percentiles down just when the server saturates
+                dropped++;
+                continue;
+            }
+            inFlight.incrementAndGet();
+            CompletableFuture<?> run;
+            try {
+                run = scenario.start(intendedStart);
+            } catch (RuntimeException e) {
+                run = CompletableFuture.failedFuture(e);
+            }
+            run.whenComplete((result, error) -> {
+                recorder.record(SCENARIO, System.nanoTime() - intendedStart, error == null);
+                inFlight.decrementAndGet();
+            });
+        }
+
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(1_000_000);
+        }
+        if (inFlight.get() > 0) log.warn(inFlight.get() + " scenarios still running after the drain timeout");
+
+        return new LoadReport(ratePerSecond, total, dropped, elapsedSeconds, recorder.getStats());
+    }
+}
@@ -0,0 +1,29 @@
+package framework.api.load;
+
+import lombok.Value;
+
+/**
+ * Latency percentiles (in milliseconds) and error count of one step.
+ */
+@Value
+public class StepStats {
+
+    String step;
+    long count;
+    long errors;
+    double p50;
+    double p90;
+    double p99;
+    double p999;
+    double max;
+
+    public double getErrorRate() {
+        return count == 0 ? 0 : errors / (double) count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-12s count=%-8d errors=%-6d (%.2f%%) p50=%8.2fms p90=%8.2fms p99=%8.2fms p99.9=%8.2fms max=%8.2fms",
+                step, count, errors, getErrorRate() * 100, p50, p90, p99, p999, max);
+    }
+}
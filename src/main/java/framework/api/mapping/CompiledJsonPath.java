@@ -0,0 +1,115 @@
+package framework.api.mapping;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * JSON path parsed once into steps and evaluated on Jackson trees, covering the GPath subset the tests use:
+ * dotted fields ({@code data.email}), quoted fields ({@code 'first-name'}), indexes, negative ones counting
+ * from the end ({@code data[0]}, {@code data[-1]}, {@code [0].id}), and fields of a list mapped over every
+ * element ({@code data.email} on an array is the list of emails). Missing values evaluate to null.
+ * Instances are immutable and thread safe, get them through {@link JsonPaths}.
+ */
+public final class CompiledJsonPath {
+
+    private final String expression;
+    private final Step[] steps;
+
+    private CompiledJsonPath(String expression, Step[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    public static CompiledJsonPath compile(String expression) {
+        checkArgument(expression != null, "path cant be null");
+        List<Step> steps = new ArrayList<>();
+        int i = 0;
+        int length = expression.length();
+        while (i < length) {
+            char c = expression.charAt(i);
+            if (c == '.') {
+                checkArgument(i > 0 && i < length - 1, "Misplaced '.' in path: " + expression);
+                i++;
+            } else if (c == '[') {
+                int end = expression.indexOf(']', i);
+                checkArgument(end > i + 1, "Unclosed index in path: " + expression);
+                steps.add(new IndexStep(Integer.parseInt(expression.substring(i + 1, end).trim())));
+                i = end + 1;
+            } else if (c == '\'' || c == '"') {
+                int end = expression.indexOf(c, i + 1);
+                checkArgument(end > i, "Unclosed quote in path: " + expression);
+                steps.add(new FieldStep(expression.substring(i + 1, end)));
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && expression.charAt(end) != '.' && expression.charAt(end) != '[') end++;
+                steps.add(new FieldStep(expression.substring(i, end)));
+                i = end;
+            }
+        }
+        return new CompiledJsonPath(expression, steps.toArray(new Step[0]));
+    }
+
+    /**
+     * @return the value at the path, null when missing or JSON null
+     */
+    public JsonNode evaluate(JsonNode root) {
+        JsonNode node = root;
+        for (Step step : steps) {
+            if (node == null || node.isNull()) return null;
+            node = step.apply(node);
+        }
+        return node == null || node.isNull() ? null : node;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private interface Step {
+        JsonNode apply(JsonNode node);
+    }
+
+    private static class FieldStep implements Step {
+
+        private final String name;
+
+        FieldStep(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public JsonNode apply(JsonNode node) {
+            if (node.isObject()) return node.get(name);
+            if (!node.isArray()) return null;
+            ArrayNode values = JsonNodeFactory.instance.arrayNode(node.size());
+            for (JsonNode element : node) {
+                JsonNode value = element.isNull() ? null : apply(element);
+                if (value != null) values.add(value);
+            }
+            return values;
+        }
+    }
+
+    private static class IndexStep implements Step {
+
+        private final int index;
+
+        IndexStep(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public JsonNode apply(JsonNode node) {
+            if (!node.isArray()) return null;
+            return node.get(index < 0 ? node.size() + index : index);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package framework.api.mapping;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.log4j.Log4j;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The one Jackson mapper of the framework, with cached readers and writers per type.
+ * Building a mapper, and the (de)serializers it caches, is by far the most expensive part of mapping small DTOs,
+ * so it is done once and shared; configured mappers, readers and writers are all thread safe.
+ * {@link #warmUp(Collection)} resolves the DTOs up front, so the first call of a test doesn't pay for it.
+ */
+@Log4j
+public final class JsonMapping {
+
+    private static final ObjectMapper MAPPER = createMapper();
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+    private static final Map<Type, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private JsonMapping() {
+    }
+
+    /**
+     * Settings RestAssured and the async calls use:
+     * exclude null values from serialization
+     * to avoid writing dates as timestamp and be able to serialize java 8 LocalDate
+     * case insensitive enum values
+     * the (de)serializers generated from the OpenAPI spec, see META-INF/services/com.fasterxml.jackson.databind.Module
+     */
+    public static ObjectMapper createMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        objectMapper.configure(MapperFeature.ACCEPT_CASE_INSENSITIVE_VALUES, true);
+        objectMapper.registerModules(ObjectMapper.findModules(JsonMapping.class.getClassLoader()));
+        return objectMapper;
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectReader reader(Type type) {
+        ObjectReader reader = READERS.get(type);
+        return reader != null ? reader : READERS.computeIfAbsent(type, key -> MAPPER.readerFor(MAPPER.constructType(key)));
+    }
+
+    public static ObjectWriter writer(Class<?> type) {
+        ObjectWriter writer = WRITERS.get(type);
+        return writer != null ? writer : WRITERS.computeIfAbsent(type, MAPPER::writerFor);
+    }
+
+    public static ObjectWriter prettyWriter() {
+        return PRETTY_WRITER;
+    }
+
+    public static String write(Object value) throws JsonProcessingException {
+        return writer(value.getClass()).writeValueAsString(value);
+    }
+
+    public static <T> T read(String json, Class<T> type) throws IOException {
+        return reader(type).readValue(json);
+    }
+
+    /**
+     * Builds the readers and writers of the DTOs and round trips the ones with a no args constructor.
+     * The DTOs are listed rather than scanned for, scanning the classpath costs more than the warm up saves.
+     *
+     * @param types DTOs to warm, e.g. the DTOS of a generated client module
+     * @return number of DTOs warmed
+     */
+    public static int warmUp(Collection<Class<?>> types) {
+        types.forEach(JsonMapping::warmUp);
+        return types.size();
+    }
+
+    private static void warmUp(Class<?> type) {
+        ObjectReader reader = reader(type);
+        ObjectWriter writer = writer(type);
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            reader.readValue(writer.writeValueAsBytes(constructor.newInstance()));
+        } catch (NoSuchMethodException e) {
+            // builder only DTOs are only ever serialized, the writer is already resolved
+        } catch (ReflectiveOperationException | IOException e) {
+            log.warn("Couldn't warm up the mapping of " + type.getSimpleName(), e);
+        }
+    }
+}
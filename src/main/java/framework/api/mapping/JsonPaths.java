@@ -0,0 +1,90 @@
+package framework.api.mapping;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.restassured.path.xml.XmlPath;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Path lookups on responses that parse every body at most once.
+ * Compiled paths are cached by expression and parsed bodies by response (weakly, they go away with it),
+ * so checking many fields of one response costs a single parse.
+ */
+public final class JsonPaths {
+
+    private static final Map<String, CompiledJsonPath> PATHS = new ConcurrentHashMap<>();
+    private static final Cache<Response, JsonNode> TREES = CacheBuilder.newBuilder().weakKeys().build();
+    private static final Cache<Response, XmlPath> XML_PATHS = CacheBuilder.newBuilder().weakKeys().build();
+
+    private JsonPaths() {
+    }
+
+    public static CompiledJsonPath compile(String path) {
+        CompiledJsonPath compiled = PATHS.get(path);
+        return compiled != null ? compiled : PATHS.computeIfAbsent(path, CompiledJsonPath::compile);
+    }
+
+    /**
+     * Parsed body of the response, parsed on first use.
+     */
+    public static JsonNode tree(Response response) {
+        try {
+            return TREES.get(response, () -> JsonMapping.mapper().readTree(response.asByteArray()));
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException((IOException) e.getCause());
+        }
+    }
+
+    /**
+     * @return the value at the path, null when missing
+     */
+    public static JsonNode get(Response response, String path) {
+        return compile(path).evaluate(tree(response));
+    }
+
+    /**
+     * Value at the path mapped to {@code type}, null when missing.
+     */
+    public static <T> T get(Response response, String path, Class<T> type) {
+        JsonNode value = get(response, path);
+        if (value == null) return null;
+        try {
+            return JsonMapping.reader(type).readValue(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Text of a value, the JSON of an object or array, null when missing.
+     */
+    public static String getString(Response response, String path) {
+        JsonNode value = get(response, path);
+        if (value == null) return null;
+        if (value.isValueNode()) return value.asText();
+        try {
+            return JsonMapping.writer(JsonNode.class).writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * XML stays on GPath, but the body is parsed once per response instead of on every lookup.
+     */
+    public static XmlPath xmlPath(Response response) {
+        try {
+            return XML_PATHS.get(response, response::xmlPath);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Couldn't parse the response as XML", e.getCause());
+        }
+    }
+}
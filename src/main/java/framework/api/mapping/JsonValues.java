@@ -0,0 +1,190 @@
+package framework.api.mapping;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reads and writes of single values, used by the codecs generated from the OpenAPI spec
+ * (see {@code framework.codegen}). Readers start at the value's token, numbers and booleans sent as strings are
+ * accepted the way Jackson's default coercion does.
+ */
+public final class JsonValues {
+
+    private JsonValues() {
+    }
+
+    @FunctionalInterface
+    public interface ValueReader<T> {
+
+        T read(JsonParser parser) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ValueWriter<T> {
+
+        void write(T value, JsonGenerator generator) throws IOException;
+    }
+
+    public static <T> String toJson(T value, ValueWriter<T> writer) {
+        JsonFactory factory = JsonMapping.mapper().getFactory();
+        // recycles its buffers like ObjectMapper.writeValueAsString does
+        SegmentedStringWriter json = new SegmentedStringWriter(factory._getBufferRecycler());
+        try (JsonGenerator generator = factory.createGenerator(json)) {
+            writer.write(value, generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return json.getAndClear();
+    }
+
+    /**
+     * @return null for an empty body
+     */
+    public static <T> T fromJson(byte[] json, ValueReader<T> reader) {
+        try (JsonParser parser = JsonMapping.mapper().getFactory().createParser(json)) {
+            return parser.nextToken() == null ? null : reader.read(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static <T> JsonSerializer<T> serializer(Class<T> type, ValueWriter<T> writer) {
+        return new StdSerializer<T>(type) {
+            @Override
+            public void serialize(T value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+                writer.write(value, generator);
+            }
+        };
+    }
+
+    public static <T> JsonDeserializer<T> deserializer(Class<T> type, ValueReader<T> reader) {
+        return new StdDeserializer<T>(type) {
+            @Override
+            public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                return reader.read(parser);
+            }
+        };
+    }
+
+    /**
+     * Moves into the object starting at the current token.
+     *
+     * @return token of its first field, END_OBJECT when it has none
+     */
+    public static JsonToken firstField(JsonParser parser, Class<?> type) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) return parser.nextToken();
+        // Jackson hands over objects it already started reading at their first field
+        if (token == JsonToken.FIELD_NAME || token == JsonToken.END_OBJECT) return token;
+        throw MismatchedInputException.from(parser, type, "Expected an object for " + type.getSimpleName() + " but got " + token);
+    }
+
+    public static <T> List<T> readList(JsonParser parser, ValueReader<T> element) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) return null;
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw MismatchedInputException.from(parser, List.class, "Expected an array but got " + parser.currentToken());
+        }
+        List<T> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(element.read(parser));
+        }
+        return list;
+    }
+
+    public static <T> void writeList(List<T> list, JsonGenerator generator, ValueWriter<T> element) throws IOException {
+        generator.writeStartArray();
+        for (T value : list) {
+            if (value == null) generator.writeNull();
+            else element.write(value, generator);
+        }
+        generator.writeEndArray();
+    }
+
+    public static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) return null;
+        if (token.isScalarValue()) return parser.getText();
+        throw MismatchedInputException.from(parser, String.class, "Expected a string but got " + token);
+    }
+
+    public static Integer readInteger(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) return parser.getIntValue();
+        String text = readNumberText(parser, Integer.class);
+        return text == null ? null : Integer.valueOf(text);
+    }
+
+    public static Long readLong(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) return parser.getLongValue();
+        String text = readNumberText(parser, Long.class);
+        return text == null ? null : Long.valueOf(text);
+    }
+
+    public static Double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) return parser.getDoubleValue();
+        String text = readNumberText(parser, Double.class);
+        return text == null ? null : Double.valueOf(text);
+    }
+
+    public static Boolean readBoolean(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE) return token == JsonToken.VALUE_TRUE;
+        if (token == JsonToken.VALUE_NULL) return null;
+        if (token == JsonToken.VALUE_STRING) return Boolean.valueOf(parser.getText().trim());
+        throw MismatchedInputException.from(parser, Boolean.class, "Expected a boolean but got " + token);
+    }
+
+    public static JsonNode readTree(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : JsonMapping.mapper().readTree(parser);
+    }
+
+    public static void writeString(String value, JsonGenerator generator) throws IOException {
+        generator.writeString(value);
+    }
+
+    public static void writeInteger(Integer value, JsonGenerator generator) throws IOException {
+        generator.writeNumber(value);
+    }
+
+    public static void writeLong(Long value, JsonGenerator generator) throws IOException {
+        generator.writeNumber(value);
+    }
+
+    public static void writeDouble(Double value, JsonGenerator generator) throws IOException {
+        generator.writeNumber(value);
+    }
+
+    public static void writeBoolean(Boolean value, JsonGenerator generator) throws IOException {
+        generator.writeBoolean(value);
+    }
+
+    public static void writeTree(JsonNode value, JsonGenerator generator) throws IOException {
+        JsonMapping.mapper().writeTree(generator, value);
+    }
+
+    private static String readNumberText(JsonParser parser, Class<?> type) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) return null;
+        // e.g. the id of a created user, reqres sends it as a string
+        if (token == JsonToken.VALUE_STRING) return parser.getText().trim().isEmpty() ? null : parser.getText().trim();
+        throw MismatchedInputException.from(parser, type, "Expected a number but got " + token);
+    }
+}
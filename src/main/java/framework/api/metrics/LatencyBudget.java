@@ -0,0 +1,43 @@
+package framework.api.metrics;
+
+import lombok.Value;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Upper bound for a latency percentile of one endpoint phase, e.g. p99 of TOTAL for "POST api/users" under 2000ms.
+ */
+@Value
+public class LatencyBudget {
+
+    String endpoint;
+    Phase phase;
+    double percentile;
+    double maxMillis;
+
+    /**
+     * Parses {@code <METHOD> <template>[:<phase>]:p<percentile>=<millis>}, the phase defaults to TOTAL.
+     */
+    public static LatencyBudget parse(String budget) {
+        int separator = budget.lastIndexOf('=');
+        int percentileStart = budget.lastIndexOf(":p");
+        checkArgument(separator > 0 && percentileStart > 0 && percentileStart < separator,
+                "Latency budget must look like <METHOD> <template>[:<phase>]:p<percentile>=<millis>: " + budget);
+        String target = budget.substring(0, percentileStart).trim();
+        double percentile = Double.parseDouble(budget.substring(percentileStart + 2, separator).trim());
+        double maxMillis = Double.parseDouble(budget.substring(separator + 1).trim());
+
+        Phase phase = Phase.TOTAL;
+        int phaseStart = target.lastIndexOf(':');
+        if (phaseStart > 0) {
+            phase = Phase.valueOf(target.substring(phaseStart + 1).trim().toUpperCase());
+            target = target.substring(0, phaseStart).trim();
+        }
+        return new LatencyBudget(target, phase, percentile, maxMillis);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s p%s <= %.0fms", endpoint, phase, percentile, maxMillis);
+    }
+}
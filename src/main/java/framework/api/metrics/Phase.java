@@ -0,0 +1,17 @@
+package framework.api.metrics;
+
+/**
+ * Phases a REST call is timed through. TOTAL goes from sending to the body being read, deserialization
+ * happens later, when the test asks for the object, and is timed on its own.
+ */
+public enum Phase {
+    // waiting for a pooled connection
+    QUEUE,
+    // TCP connect and TLS handshake, only when a new connection is opened
+    CONNECT,
+    // request written until the response headers arrived
+    TTFB,
+    BODY,
+    DESERIALIZE,
+    TOTAL
+}
@@ -0,0 +1,95 @@
+package framework.api.metrics;
+
+import framework.api.load.LatencyRecorder;
+import framework.api.load.StepStats;
+import framework.ui.common.ReadConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Latency histograms of every REST call of the run, per endpoint and {@link Phase}, plus the declared budgets.
+ * Budgets come from the {@code latency.budgets} property (see {@link LatencyBudget#parse(String)}, separated by ;)
+ * and from {@link #budget(String, Phase, double, Duration)}.
+ */
+public final class RequestLatencies {
+
+    private static final Map<String, LatencyRecorder> ENDPOINTS = new ConcurrentHashMap<>();
+    private static final List<LatencyBudget> BUDGETS = new CopyOnWriteArrayList<>(configuredBudgets());
+
+    private RequestLatencies() {
+    }
+
+    public static void record(String endpoint, Phase phase, long nanos, boolean success) {
+        LatencyRecorder recorder = ENDPOINTS.get(endpoint);
+        if (recorder == null) recorder = ENDPOINTS.computeIfAbsent(endpoint, key -> new LatencyRecorder());
+        recorder.record(phase.name(), nanos, success);
+    }
+
+    /**
+     * Phase stats by endpoint, endpoints sorted by name.
+     */
+    public static Map<String, List<StepStats>> getStats() {
+        Map<String, List<StepStats>> stats = new LinkedHashMap<>();
+        new TreeMap<>(ENDPOINTS).forEach((endpoint, recorder) -> stats.put(endpoint, recorder.getStats()));
+        return stats;
+    }
+
+    public static long getCount(String endpoint, Phase phase) {
+        LatencyRecorder recorder = ENDPOINTS.get(endpoint);
+        return recorder == null ? 0 : recorder.getCount(phase.name());
+    }
+
+    public static double getPercentileMillis(String endpoint, Phase phase, double percentile) {
+        LatencyRecorder recorder = ENDPOINTS.get(endpoint);
+        return recorder == null ? 0 : recorder.getPercentileMillis(phase.name(), percentile);
+    }
+
+    public static void budget(String endpoint, Phase phase, double percentile, Duration max) {
+        checkArgument(endpoint != null && phase != null && max != null, "Parameters cant be null");
+        BUDGETS.add(new LatencyBudget(endpoint, phase, percentile, max.toNanos() / 1e6));
+    }
+
+    public static List<LatencyBudget> getBudgets() {
+        return new ArrayList<>(BUDGETS);
+    }
+
+    /**
+     * Budgets whose endpoint phase was recorded above the limit, with the measured value.
+     */
+    public static Map<LatencyBudget, Double> getBudgetViolations() {
+        Map<LatencyBudget, Double> violations = new LinkedHashMap<>();
+        for (LatencyBudget budget : BUDGETS) {
+            LatencyRecorder recorder = ENDPOINTS.get(budget.getEndpoint());
+            if (recorder == null) continue;
+            double measured = recorder.getPercentileMillis(budget.getPhase().name(), budget.getPercentile());
+            if (measured > budget.getMaxMillis()) violations.put(budget, measured);
+        }
+        return violations;
+    }
+
+    public static void assertBudgets() {
+        Map<LatencyBudget, Double> violations = getBudgetViolations();
+        if (violations.isEmpty()) return;
+        StringBuilder message = new StringBuilder("Latency budgets exceeded:");
+        violations.forEach((budget, measured) -> message.append(String.format("\n - %s, measured %.2fms", budget, measured)));
+        throw new AssertionError(message.toString());
+    }
+
+    private static List<LatencyBudget> configuredBudgets() {
+        List<LatencyBudget> budgets = new ArrayList<>();
+        String configured = new ReadConfig().getPropValue("latency.budgets", "");
+        for (String budget : configured.split(";")) {
+            if (!budget.trim().isEmpty()) budgets.add(LatencyBudget.parse(budget.trim()));
+        }
+        return budgets;
+    }
+}
@@ -0,0 +1,84 @@
+package framework.api.metrics;
+
+/**
+ * Phase timings of the call running on the current thread.
+ * Blocking calls run on the caller thread from start to finish, so the transport layers (connection pool,
+ * request executor, filters) add their phases to {@link #current()} without any call context being passed
+ * around. Once finished the timer stays as the thread's last exchange, so deserializing the response right
+ * after is counted for the same endpoint.
+ */
+public class RequestTimer {
+
+    private static final ThreadLocal<RequestTimer> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<RequestTimer> LAST = new ThreadLocal<>();
+
+    private final String endpoint;
+    private final long startNanos = System.nanoTime();
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    private RequestTimer(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Starts timing a call on the current thread, {@code endpoint} is what timings are grouped by, e.g. "GET api/users/%s".
+     */
+    public static RequestTimer start(String endpoint) {
+        RequestTimer timer = new RequestTimer(endpoint);
+        CURRENT.set(timer);
+        return timer;
+    }
+
+    /**
+     * Timer for a call that completes on another thread, it is never the current one.
+     */
+    public static RequestTimer detached(String endpoint) {
+        return new RequestTimer(endpoint);
+    }
+
+    public static RequestTimer current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Adds to the phase of the current call, does nothing when no call is being timed on this thread.
+     */
+    public static void add(Phase phase, long nanos) {
+        RequestTimer timer = CURRENT.get();
+        if (timer != null) timer.phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public static void deserialized(long nanos) {
+        RequestTimer timer = LAST.get();
+        if (timer != null) {
+            LAST.remove();
+            RequestLatencies.record(timer.endpoint, Phase.DESERIALIZE, nanos, true);
+        }
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void phase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos;
+    }
+
+    public long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Records the phases that happened and the total, and makes this the last exchange of the calling thread.
+     */
+    public void finish(boolean success) {
+        if (CURRENT.get() == this) CURRENT.remove();
+        for (Phase phase : Phase.values()) {
+            if (phase != Phase.TOTAL && phaseNanos[phase.ordinal()] > 0) {
+                RequestLatencies.record(endpoint, phase, phaseNanos[phase.ordinal()], success);
+            }
+        }
+        RequestLatencies.record(endpoint, Phase.TOTAL, elapsedNanos(), success);
+        LAST.set(this);
+    }
+}
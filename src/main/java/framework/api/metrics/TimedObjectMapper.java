@@ -0,0 +1,40 @@
+package framework.api.metrics;
+
+import framework.api.mapping.JsonMapping;
+import io.restassured.mapper.ObjectMapper;
+import io.restassured.mapper.ObjectMapperDeserializationContext;
+import io.restassured.mapper.ObjectMapperSerializationContext;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+/**
+ * RestAssured object mapper on the shared {@link JsonMapping} readers and writers, timing {@code response.as(..)}
+ * as the DESERIALIZE phase of the thread's last call.
+ */
+public class TimedObjectMapper implements ObjectMapper {
+
+    @Override
+    public Object serialize(ObjectMapperSerializationContext context) {
+        try {
+            return JsonMapping.write(context.getObjectToSerialize());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Object deserialize(ObjectMapperDeserializationContext context) {
+        long start = System.nanoTime();
+        try (InputStreamReader body = new InputStreamReader(context.getDataToDeserialize().asInputStream(),
+                Charset.forName(context.getCharset()))) {
+            return JsonMapping.reader(context.getType()).readValue(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            RequestTimer.deserialized(System.nanoTime() - start);
+        }
+    }
+}
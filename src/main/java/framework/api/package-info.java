@@ -0,0 +1,9 @@
+/**
+ * Calls of the services under test. The typed client of the user endpoints, its DTOs and their codecs are
+ * generated from openapi/users.json when this package is compiled.
+ */
+@GenerateApiClient(spec = "openapi/users.json", clientName = "UsersApi", clientPackage = "framework.api.generated",
+        modelPackage = "framework.api.responses")
+package framework.api;
+
+import framework.codegen.GenerateApiClient;
@@ -1,12 +0,0 @@
-package framework.api.requests;
-
-import lombok.Builder;
-import lombok.Data;
-
-@Data
-@Builder
-public class CreateUserRequest {
-
-    private String name;
-    private String job;
-}
@@ -1,13 +0,0 @@
-package framework.api.responses;
-
-import lombok.Data;
-
-@Data
-public class UpdateUserResponse {
-
-    private String name;
-
-    private String job;
-
-    private String updatedAt;
-}
@@ -0,0 +1,171 @@
+package framework.api.streaming;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import framework.api.mapping.JsonMapping;
+import io.restassured.response.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Response whose body is parsed incrementally straight from the connection instead of being buffered.
+ * Only the requested values are materialized and everything else is skipped token by token, so memory stays
+ * flat whatever the size of the body. The body can be read once, either with {@link #extract(String...)} or
+ * {@link #elements(String, Class)}; closing the response hands the connection back to the pool.
+ * Locations are JSON pointers, e.g. "/page", "/data" or "/data/0/email".
+ */
+public class StreamingResponse implements AutoCloseable {
+
+    private final Response response;
+    private final InputStream body;
+    private boolean consumed;
+
+    public StreamingResponse(Response response) {
+        this.response = response;
+        this.body = response.asInputStream();
+    }
+
+    /**
+     * Status, headers and cookies, the body must be read through this class.
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * Reads the values at the pointers in one pass, stopping as soon as all were found.
+     * Pointers not present in the body are missing from the result.
+     */
+    public Map<String, JsonNode> extract(String... pointers) {
+        checkArgument(pointers != null && pointers.length > 0, "pointers cant be null or empty");
+        List<JsonPointer> wanted = Arrays.stream(pointers).map(JsonPointer::compile).collect(Collectors.toList());
+        Map<String, JsonNode> values = new HashMap<>();
+        try (JsonParser parser = parser()) {
+            while (values.size() < wanted.size() && parser.nextToken() != null) {
+                if (parser.currentToken() == JsonToken.FIELD_NAME || parser.currentToken().isStructEnd()) continue;
+                JsonPointer location = parser.getParsingContext().pathAsPointer();
+                if (wanted.contains(location)) {
+                    values.put(location.toString(), parser.readValueAsTree());
+                } else if (parser.currentToken().isStructStart() && !isPrefixOfAny(location, wanted)) {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return values;
+    }
+
+    /**
+     * Lazily maps the elements of the array at {@code arrayPointer}, one element is in memory at a time.
+     * Closing the stream closes the response.
+     */
+    public <T> Stream<T> elements(String arrayPointer, Class<T> type) {
+        JsonPointer wanted = JsonPointer.compile(arrayPointer);
+        ObjectReader reader = JsonMapping.reader(type);
+        JsonParser parser;
+        try {
+            parser = parser();
+            if (!moveTo(parser, wanted)) {
+                parser.close();
+                return Stream.empty();
+            }
+            checkState(parser.currentToken() == JsonToken.START_ARRAY, arrayPointer + " is not an array");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        Iterator<T> elements = new Iterator<T>() {
+            private JsonToken next = advance();
+
+            @Override
+            public boolean hasNext() {
+                return next != JsonToken.END_ARRAY;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                try {
+                    T element = reader.readValue(parser);
+                    next = advance();
+                    return element;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            private JsonToken advance() {
+                try {
+                    JsonToken token = parser.nextToken();
+                    return token == null ? JsonToken.END_ARRAY : token;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(elements, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        parser.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } finally {
+                        close();
+                    }
+                });
+    }
+
+    @Override
+    public void close() {
+        try {
+            body.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonParser parser() throws IOException {
+        checkState(!consumed, "The body of a streaming response can only be read once");
+        consumed = true;
+        return JsonMapping.mapper().getFactory().createParser(body);
+    }
+
+    /**
+     * Leaves the parser on the first token of the value at the pointer, false when the body has no such value.
+     */
+    private static boolean moveTo(JsonParser parser, JsonPointer wanted) throws IOException {
+        List<JsonPointer> target = List.of(wanted);
+        while (parser.nextToken() != null) {
+            if (parser.currentToken() == JsonToken.FIELD_NAME || parser.currentToken().isStructEnd()) continue;
+            JsonPointer location = parser.getParsingContext().pathAsPointer();
+            if (location.equals(wanted)) return true;
+            if (parser.currentToken().isStructStart() && !isPrefixOfAny(location, target)) parser.skipChildren();
+        }
+        return false;
+    }
+
+    private static boolean isPrefixOfAny(JsonPointer location, List<JsonPointer> pointers) {
+        String prefix = location.toString() + "/";
+        return location.matches() || pointers.stream().anyMatch(pointer -> pointer.toString().startsWith(prefix));
+    }
+}
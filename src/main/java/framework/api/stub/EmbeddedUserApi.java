@@ -0,0 +1,256 @@
+package framework.api.stub;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import framework.api.mapping.JsonMapping;
+import lombok.extern.log4j.Log4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In process stand-in for the reqres.in user API, so suites and load tests can run without the internet
+ * and client overhead can be measured on its own.
+ * Same behaviour as reqres: creates and updates echo the body with an id and a timestamp but nothing is
+ * stored, deletes always answer 204, and reads see the 12 fixed users. Reads carry an ETag and the reqres
+ * Cache-Control, and answer 304 to a matching If-None-Match. The optional {@code delay} query parameter (seconds)
+ * delays the response like it does on reqres.
+ */
+@Log4j
+public class EmbeddedUserApi {
+
+    private static final String USERS = "/api/users";
+    private static final int PER_PAGE = 6;
+    private static final String CACHE_CONTROL = "max-age=14400";
+    private static final String[][] SEED_USERS = {
+            {"george.bluth", "George", "Bluth"}, {"janet.weaver", "Janet", "Weaver"}, {"emma.wong", "Emma", "Wong"},
+            {"eve.holt", "Eve", "Holt"}, {"charles.morris", "Charles", "Morris"}, {"tracey.ramos", "Tracey", "Ramos"},
+            {"michael.lawson", "Michael", "Lawson"}, {"lindsay.ferguson", "Lindsay", "Ferguson"}, {"tobias.funke", "Tobias", "Funke"},
+            {"byron.fields", "Byron", "Fields"}, {"george.edwards", "George", "Edwards"}, {"rachel.howell", "Rachel", "Howell"}};
+
+    static {
+        // the server writes headers and body separately, with Nagle on every keep-alive response after the
+        // first waits for the client's delayed ACK (~40ms). Read once, before the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicInteger ids = new AtomicInteger(100);
+
+    /**
+     * Starts listening on the loopback interface, port 0 picks a free one.
+     */
+    public EmbeddedUserApi(int port) {
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Couldn't start the embedded user api on port " + port, e);
+        }
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "embedded-user-api");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(USERS, this::handle);
+        server.start();
+        log.info("Embedded user api listening on " + getBaseUrl());
+    }
+
+    /**
+     * Base url in the same form as the reqres one, e.g. http://127.0.0.1:51234/
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream requestBody = exchange.getRequestBody()) {
+            byte[] body = requestBody.readAllBytes();
+            URI uri = exchange.getRequestURI();
+            delay(uri.getRawQuery());
+
+            String path = uri.getPath().replaceAll("/+$", "");
+            String id = path.length() > USERS.length() ? path.substring(USERS.length() + 1) : null;
+            if (id != null && id.contains("/")) {
+                respond(exchange, 404, JsonMapping.mapper().createObjectNode());
+                return;
+            }
+
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    if (id == null) respondCacheable(exchange, page(intParam(uri.getRawQuery(), "page", 1)));
+                    else user(exchange, id);
+                    break;
+                case "POST":
+                    if (id != null) respond(exchange, 404, JsonMapping.mapper().createObjectNode());
+                    else echo(exchange, 201, body, "createdAt", String.valueOf(ids.incrementAndGet()));
+                    break;
+                case "PUT":
+                case "PATCH":
+                    echo(exchange, 200, body, "updatedAt", null);
+                    break;
+                case "DELETE":
+                    respond(exchange, 204, null);
+                    break;
+                default:
+                    respond(exchange, 405, JsonMapping.mapper().createObjectNode());
+            }
+        } catch (RuntimeException e) {
+            log.error("Embedded user api failed to answer " + exchange.getRequestMethod() + " " + exchange.getRequestURI(), e);
+            respond(exchange, 500, JsonMapping.mapper().createObjectNode());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void echo(HttpExchange exchange, int status, byte[] body, String timestampField, String id) throws IOException {
+        ObjectNode response;
+        try {
+            JsonNode request = body.length == 0 ? JsonMapping.mapper().createObjectNode() : JsonMapping.mapper().readTree(body);
+            if (!request.isObject()) {
+                respondText(exchange, 400, "Bad Request");
+                return;
+            }
+            response = (ObjectNode) request;
+        } catch (JsonProcessingException e) {
+            respondText(exchange, 400, "Bad Request");
+            return;
+        }
+        if (id != null) response.put("id", id);
+        response.put(timestampField, Instant.now().toString());
+        respond(exchange, status, response);
+    }
+
+    private void user(HttpExchange exchange, String id) throws IOException {
+        int index;
+        try {
+            index = Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            index = 0;
+        }
+        if (index < 1 || index > SEED_USERS.length) {
+            respond(exchange, 404, JsonMapping.mapper().createObjectNode());
+            return;
+        }
+        ObjectNode response = JsonMapping.mapper().createObjectNode();
+        response.set("data", seedUser(index));
+        response.set("support", support());
+        respondCacheable(exchange, response);
+    }
+
+    private static ObjectNode page(int page) {
+        int total = SEED_USERS.length;
+        ObjectNode response = JsonMapping.mapper().createObjectNode();
+        response.put("page", page);
+        response.put("per_page", PER_PAGE);
+        response.put("total", total);
+        response.put("total_pages", (total + PER_PAGE - 1) / PER_PAGE);
+        ArrayNode data = response.putArray("data");
+        for (int index = (page - 1) * PER_PAGE + 1; page > 0 && index <= Math.min(page * PER_PAGE, total); index++) {
+            data.add(seedUser(index));
+        }
+        response.set("support", support());
+        return response;
+    }
+
+    private static ObjectNode seedUser(int index) {
+        String[] seed = SEED_USERS[index - 1];
+        ObjectNode user = JsonMapping.mapper().createObjectNode();
+        user.put("id", index);
+        user.put("email", seed[0] + "@reqres.in");
+        user.put("first_name", seed[1]);
+        user.put("last_name", seed[2]);
+        user.put("avatar", "https://reqres.in/img/faces/" + index + "-image.jpg");
+        return user;
+    }
+
+    private static ObjectNode support() {
+        ObjectNode support = JsonMapping.mapper().createObjectNode();
+        support.put("url", "https://reqres.in/#support-heading");
+        support.put("text", "To keep ReqRes free, contributions towards server costs are appreciated!");
+        return support;
+    }
+
+    private static void delay(String query) {
+        int seconds = intParam(query, "delay", 0);
+        if (seconds <= 0) return;
+        try {
+            TimeUnit.SECONDS.sleep(seconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int intParam(String query, String name, int defaultValue) {
+        if (query == null) return defaultValue;
+        for (String param : query.split("&")) {
+            if (param.startsWith(name + "=")) {
+                try {
+                    return Integer.parseInt(param.substring(name.length() + 1));
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        send(exchange, status, JsonMapping.writer(JsonNode.class).writeValueAsBytes(body));
+    }
+
+    private static void respondCacheable(HttpExchange exchange, JsonNode body) throws IOException {
+        byte[] bytes = JsonMapping.writer(JsonNode.class).writeValueAsBytes(body);
+        String etag = "W/\"" + Integer.toHexString(Arrays.hashCode(bytes)) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Cache-Control", CACHE_CONTROL);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        send(exchange, 200, bytes);
+    }
+
+    private static void respondText(HttpExchange exchange, int status, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream responseBody = exchange.getResponseBody()) {
+            responseBody.write(body);
+        }
+    }
+}
@@ -0,0 +1,599 @@
+package framework.codegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javax.lang.model.SourceVersion;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Java sources for an OpenAPI 3 description:
+ * a DTO per schema with getters, setters, a builder, equals, hashCode and toString
+ * a codec per schema that writes and reads it with the Jackson streaming API, no reflection or bean introspection
+ * a Jackson module registering the codecs, so RestAssured and the shared mapper use them too
+ * a client with a method per operation that sends an {@code ApiRequest} through {@code RestCalls.sendAsync},
+ * the body already written by its codec, and reads the response with the codec of the documented 2xx schema.
+ * Supported schemas are objects of string, integer (int64 as Long), number, boolean, $ref and array properties,
+ * anything else maps to a JsonNode.
+ */
+class ApiClientGenerator {
+
+    private static final String API_REQUEST = "framework.api.ApiRequest";
+    private static final String REST_CALLS = "framework.api.RestCalls";
+    private static final String JSON_VALUES = "framework.api.mapping.JsonValues";
+    private static final String[] HTTP_METHODS = {"get", "put", "post", "delete", "patch", "head", "options"};
+
+    private final JsonNode spec;
+    private final String specName;
+    private final String clientPackage;
+    private final String clientName;
+    private final String modelPackage;
+    private final Map<String, Schema> schemas = new LinkedHashMap<>();
+
+    ApiClientGenerator(JsonNode spec, String specName, String clientPackage, String clientName, String modelPackage) {
+        this.spec = spec;
+        this.specName = specName;
+        this.clientPackage = clientPackage;
+        this.clientName = clientName;
+        this.modelPackage = modelPackage;
+    }
+
+    String getModuleName() {
+        return clientPackage + "." + clientName + "Module";
+    }
+
+    /**
+     * @return source of every generated class by qualified name
+     */
+    Map<String, String> generate() {
+        readSchemas();
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (Schema schema : schemas.values()) {
+            sources.put(schema.qualifiedName(), dto(schema));
+            sources.put(clientPackage + "." + schema.name + "Codec", codec(schema));
+        }
+        sources.put(getModuleName(), module());
+        sources.put(clientPackage + "." + clientName, client(readOperations()));
+        return sources;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- spec
+
+    private void readSchemas() {
+        Iterator<Map.Entry<String, JsonNode>> entries = spec.path("components").path("schemas").fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> entry = entries.next();
+            JsonNode node = entry.getValue();
+            String javaPackage = node.path("x-java-package").asText(modelPackage);
+            schemas.put(entry.getKey(), new Schema(entry.getKey(), javaPackage, node.path("description").asText(null)));
+        }
+        for (Schema schema : schemas.values()) {
+            JsonNode node = spec.path("components").path("schemas").path(schema.name);
+            if (!node.path("type").asText("object").equals("object")) {
+                throw new IllegalArgumentException("Schema " + schema.name + " isn't an object");
+            }
+            Iterator<Map.Entry<String, JsonNode>> properties = node.path("properties").fields();
+            while (properties.hasNext()) {
+                Map.Entry<String, JsonNode> property = properties.next();
+                schema.properties.add(new Property(property.getKey(), javaName(property.getKey()), type(property.getValue())));
+            }
+        }
+    }
+
+    private List<Operation> readOperations() {
+        List<Operation> operations = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> paths = spec.path("paths").fields();
+        while (paths.hasNext()) {
+            Map.Entry<String, JsonNode> path = paths.next();
+            for (String method : HTTP_METHODS) {
+                JsonNode node = path.getValue().path(method);
+                if (node.isMissingNode()) continue;
+                String operationId = node.path("operationId").asText(null);
+                if (operationId == null) throw new IllegalArgumentException(method.toUpperCase() + " " + path.getKey() + " has no operationId");
+                Operation operation = new Operation(javaName(operationId), method.toUpperCase(), path.getKey());
+                // path level parameters first, the operation's override them
+                readParameters(path.getValue().path("parameters"), operation);
+                readParameters(node.path("parameters"), operation);
+                JsonNode body = node.path("requestBody").path("content").path("application/json").path("schema");
+                if (!body.isMissingNode()) operation.body = type(body);
+                readResponse(node.path("responses"), operation);
+                operations.add(operation);
+            }
+        }
+        return operations;
+    }
+
+    private void readParameters(JsonNode parameters, Operation operation) {
+        for (JsonNode parameter : parameters) {
+            Property property = new Property(parameter.path("name").asText(), javaName(parameter.path("name").asText()),
+                    type(parameter.path("schema")));
+            List<Property> target = parameter.path("in").asText().equals("path") ? operation.pathParameters
+                    : parameter.path("in").asText().equals("query") ? operation.queryParameters : null;
+            if (target == null) continue;
+            target.removeIf(existing -> existing.jsonName.equals(property.jsonName));
+            target.add(property);
+        }
+    }
+
+    private void readResponse(JsonNode responses, Operation operation) {
+        Iterator<Map.Entry<String, JsonNode>> entries = responses.fields();
+        while (entries.hasNext()) {
+            Map.Entry<String, JsonNode> response = entries.next();
+            if (!response.getKey().startsWith("2")) continue;
+            operation.status = Integer.parseInt(response.getKey());
+            JsonNode schema = response.getValue().path("content").path("application/json").path("schema");
+            if (!schema.isMissingNode()) operation.response = type(schema);
+            return;
+        }
+        throw new IllegalArgumentException(operation.method + " " + operation.path + " has no 2xx response");
+    }
+
+    private Type type(JsonNode node) {
+        if (node.has("$ref")) {
+            String ref = node.path("$ref").asText();
+            Schema schema = schemas.get(ref.substring(ref.lastIndexOf('/') + 1));
+            if (schema == null) throw new IllegalArgumentException("Unknown schema " + ref);
+            return Type.ref(schema);
+        }
+        switch (node.path("type").asText("")) {
+            case "string":
+                return Type.simple("String", "String");
+            case "integer":
+                return node.path("format").asText("").equals("int64") ? Type.simple("Long", "Long") : Type.simple("Integer", "Integer");
+            case "number":
+                return Type.simple("Double", "Double");
+            case "boolean":
+                return Type.simple("Boolean", "Boolean");
+            case "array":
+                return Type.list(type(node.path("items")));
+            default:
+                return Type.simple("com.fasterxml.jackson.databind.JsonNode", "Tree");
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- dto
+
+    private String dto(Schema schema) {
+        Set<String> imports = new TreeSet<>();
+        imports.add("java.util.Objects");
+        // mappers without the generated module still bind the wire names, like the codecs unknown fields are skipped
+        imports.add("com.fasterxml.jackson.annotation.JsonIgnoreProperties");
+        schema.properties.forEach(property -> property.type.collectImports(imports));
+        if (schema.properties.stream().anyMatch(property -> !property.jsonName.equals(property.javaName))) {
+            imports.add("com.fasterxml.jackson.annotation.JsonProperty");
+        }
+
+        StringBuilder source = header(schema.javaPackage, imports);
+        source.append("/**\n * ").append(schema.description != null ? schema.description : "Schema " + schema.name + ".")
+                .append("\n */\n@JsonIgnoreProperties(ignoreUnknown = true)\npublic class ").append(schema.name).append(" {\n\n");
+        for (Property property : schema.properties) {
+            if (!property.jsonName.equals(property.javaName)) {
+                source.append("    @JsonProperty(\"").append(property.jsonName).append("\")\n");
+            }
+            source.append("    private ").append(property.type.javaType()).append(' ').append(property.javaName).append(";\n");
+        }
+        source.append("\n    public ").append(schema.name).append("() {\n    }\n\n");
+        source.append("    public ").append(schema.name).append('(').append(parameters(schema.properties)).append(") {\n");
+        for (Property property : schema.properties) {
+            source.append("        this.").append(property.javaName).append(" = ").append(property.javaName).append(";\n");
+        }
+        source.append("    }\n\n");
+        source.append("    public static ").append(schema.name).append("Builder builder() {\n        return new ")
+                .append(schema.name).append("Builder();\n    }\n");
+
+        for (Property property : schema.properties) {
+            String type = property.type.javaType();
+            source.append("\n    public ").append(type).append(' ').append(accessor("get", property)).append("() {\n        return ")
+                    .append(property.javaName).append(";\n    }\n");
+            source.append("\n    public void ").append(accessor("set", property)).append('(').append(type).append(' ')
+                    .append(property.javaName).append(") {\n        this.").append(property.javaName).append(" = ")
+                    .append(property.javaName).append(";\n    }\n");
+        }
+
+        source.append("\n    @Override\n    public boolean equals(Object o) {\n        if (this == o) return true;\n")
+                .append("        if (o == null || getClass() != o.getClass()) return false;\n");
+        if (schema.properties.isEmpty()) {
+            source.append("        return true;\n");
+        } else {
+            source.append("        ").append(schema.name).append(" that = (").append(schema.name).append(") o;\n        return ")
+                    .append(schema.properties.stream()
+                            .map(property -> "Objects.equals(" + property.javaName + ", that." + property.javaName + ")")
+                            .collect(Collectors.joining("\n                && ")))
+                    .append(";\n");
+        }
+        source.append("    }\n\n    @Override\n    public int hashCode() {\n        return Objects.hash(")
+                .append(schema.properties.stream().map(property -> property.javaName).collect(Collectors.joining(", ")))
+                .append(");\n    }\n\n    @Override\n    public String toString() {\n        return \"").append(schema.name).append("(\"");
+        for (int i = 0; i < schema.properties.size(); i++) {
+            Property property = schema.properties.get(i);
+            source.append("\n                + \"").append(i == 0 ? "" : ", ").append(property.javaName).append("=\" + ").append(property.javaName);
+        }
+        source.append("\n                + \")\";\n    }\n\n");
+
+        source.append("    public static class ").append(schema.name).append("Builder {\n\n");
+        for (Property property : schema.properties) {
+            source.append("        private ").append(property.type.javaType()).append(' ').append(property.javaName).append(";\n");
+        }
+        for (Property property : schema.properties) {
+            source.append("\n        public ").append(schema.name).append("Builder ").append(property.javaName).append('(')
+                    .append(property.type.javaType()).append(' ').append(property.javaName).append(") {\n            this.")
+                    .append(property.javaName).append(" = ").append(property.javaName).append(";\n            return this;\n        }\n");
+        }
+        source.append("\n        public ").append(schema.name).append(" build() {\n            return new ").append(schema.name).append('(')
+                .append(schema.properties.stream().map(property -> property.javaName).collect(Collectors.joining(", ")))
+                .append(");\n        }\n    }\n}\n");
+        return source.toString();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- codec
+
+    private String codec(Schema schema) {
+        Set<String> imports = new TreeSet<>();
+        imports.add("com.fasterxml.jackson.core.JsonGenerator");
+        imports.add("com.fasterxml.jackson.core.JsonParser");
+        imports.add("com.fasterxml.jackson.core.JsonToken");
+        imports.add(JSON_VALUES);
+        imports.add("java.io.IOException");
+        imports.add(schema.qualifiedName());
+        schema.properties.forEach(property -> property.type.collectImports(imports));
+
+        StringBuilder source = header(clientPackage, imports);
+        source.append("/**\n * Writes and reads {@link ").append(schema.name).append("} field by field with the streaming API.\n */\n")
+                .append("public final class ").append(schema.name).append("Codec {\n\n")
+                .append("    private ").append(schema.name).append("Codec() {\n    }\n\n");
+
+        source.append("    public static void write(").append(schema.name).append(" value, JsonGenerator generator) throws IOException {\n")
+                .append("        if (value == null) {\n            generator.writeNull();\n            return;\n        }\n")
+                .append("        generator.writeStartObject();\n");
+        for (Property property : schema.properties) {
+            String getter = "value." + accessor("get", property) + "()";
+            // null properties are left out, like the shared mapper does
+            source.append("        if (").append(getter).append(" != null) {\n")
+                    .append("            generator.writeFieldName(\"").append(property.jsonName).append("\");\n")
+                    .append("            ").append(property.type.writeCall(getter)).append(";\n        }\n");
+        }
+        source.append("        generator.writeEndObject();\n    }\n\n");
+
+        source.append("    /**\n     * Reads the value starting at the current token, unknown fields are skipped.\n     */\n")
+                .append("    public static ").append(schema.name).append(" read(JsonParser parser) throws IOException {\n")
+                .append("        if (parser.currentToken() == JsonToken.VALUE_NULL) return null;\n")
+                .append("        ").append(schema.name).append(" value = new ").append(schema.name).append("();\n")
+                .append("        for (JsonToken token = JsonValues.firstField(parser, ").append(schema.name)
+                .append(".class); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {\n")
+                .append("            String field = parser.getCurrentName();\n            parser.nextToken();\n")
+                .append("            switch (field) {\n");
+        for (Property property : schema.properties) {
+            source.append("                case \"").append(property.jsonName).append("\":\n                    value.")
+                    .append(accessor("set", property)).append('(').append(property.type.readCall()).append(");\n")
+                    .append("                    break;\n");
+        }
+        source.append("                default:\n                    parser.skipChildren();\n            }\n        }\n")
+                .append("        return value;\n    }\n}\n");
+        return source.toString();
+    }
+
+    private String module() {
+        Set<String> imports = new TreeSet<>();
+        imports.add("com.fasterxml.jackson.databind.module.SimpleModule");
+        imports.add(JSON_VALUES);
+        imports.add("java.util.List");
+        schemas.values().forEach(schema -> imports.add(schema.qualifiedName()));
+
+        StringBuilder source = header(clientPackage, imports);
+        source.append("/**\n * Jackson (de)serializers of the ").append(clientName).append(" DTOs backed by their codecs.\n */\n")
+                .append("public class ").append(clientName).append("Module extends SimpleModule {\n\n")
+                .append("    /**\n     * Every DTO of the ").append(clientName).append(", see JsonMapping#warmUp.\n     */\n")
+                .append("    public static final List<Class<?>> DTOS = List.of(");
+        String separator = "\n            ";
+        for (Schema schema : schemas.values()) {
+            source.append(separator).append(schema.name).append(".class");
+            separator = ",\n            ";
+        }
+        source.append(");\n\n")
+                .append("    public ").append(clientName).append("Module() {\n")
+                .append("        super(\"").append(clientName).append("Module\");\n");
+        for (Schema schema : schemas.values()) {
+            source.append("        addSerializer(").append(schema.name).append(".class, JsonValues.serializer(").append(schema.name)
+                    .append(".class, ").append(schema.name).append("Codec::write));\n")
+                    .append("        addDeserializer(").append(schema.name).append(".class, JsonValues.deserializer(").append(schema.name)
+                    .append(".class, ").append(schema.name).append("Codec::read));\n");
+        }
+        source.append("    }\n}\n");
+        return source.toString();
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- client
+
+    private String client(List<Operation> operations) {
+        Set<String> imports = new TreeSet<>();
+        imports.add(API_REQUEST);
+        imports.add(REST_CALLS);
+        imports.add(JSON_VALUES);
+        imports.add("io.restassured.http.Method");
+        imports.add("java.util.concurrent.CompletableFuture");
+        for (Operation operation : operations) {
+            operation.pathParameters.forEach(parameter -> parameter.type.collectImports(imports));
+            operation.queryParameters.forEach(parameter -> parameter.type.collectImports(imports));
+            if (operation.body != null) operation.body.collectImports(imports);
+            if (operation.response != null) operation.response.collectImports(imports);
+            else imports.add("io.restassured.response.Response");
+            if (!operation.queryParameters.isEmpty()) {
+                imports.add("java.util.HashMap");
+                imports.add("java.util.Map");
+            }
+            if (!operation.pathParameters.isEmpty() || operation.body != null) {
+                imports.add("static com.google.common.base.Preconditions.checkArgument");
+            }
+        }
+        boolean pathParameters = operations.stream().anyMatch(operation -> !operation.pathParameters.isEmpty());
+        if (pathParameters) imports.add("com.google.common.net.UrlEscapers");
+
+        StringBuilder source = header(clientPackage, imports);
+        source.append("/**\n * Typed calls of ").append(spec.path("info").path("title").asText(specName))
+                .append(". Requests are sent with {@link RestCalls#sendAsync(ApiRequest)}, bodies are\n")
+                .append(" * written and read by the generated codecs, so no RestAssured specification or bean introspection is involved.\n")
+                .append(" * Every call has a variant taking the expected status, null accepts any status below 400.\n */\n")
+                .append("public class ").append(clientName).append(" {\n\n")
+                .append("    private final RestCalls api;\n    private final String baseUrl;\n\n")
+                .append("    /**\n     * @param baseUrl ending with a slash, e.g. ")
+                .append(spec.path("servers").path(0).path("url").asText("https://host/")).append("\n     */\n")
+                .append("    public ").append(clientName).append("(RestCalls api, String baseUrl) {\n")
+                .append("        this.api = api;\n        this.baseUrl = baseUrl;\n    }\n");
+        for (Operation operation : operations) {
+            clientMethods(source, operation);
+        }
+        if (pathParameters) {
+            source.append("\n    private static String pathSegment(Object value) {\n")
+                    .append("        // a value with a space, slash or ? stays within its segment\n")
+                    .append("        return UrlEscapers.urlPathSegmentEscaper().escape(String.valueOf(value));\n    }\n");
+        }
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private void clientMethods(StringBuilder source, Operation operation) {
+        List<Property> parameters = new ArrayList<>(operation.pathParameters);
+        parameters.addAll(operation.queryParameters);
+        if (operation.body != null) parameters.add(new Property("body", "body", operation.body));
+        String resultType = operation.response != null ? operation.response.javaType() : "Response";
+        String arguments = parameters.stream().map(parameter -> parameter.javaName).collect(Collectors.joining(", "));
+
+        source.append("\n    /**\n     * ").append(operation.method).append(' ').append(operation.path).append(", answered ")
+                .append(operation.status).append(operation.response != null ? " with " + operation.response.javaType() : "")
+                .append(".\n     */\n")
+                .append("    public CompletableFuture<").append(resultType).append("> ").append(operation.name).append('(')
+                .append(parameters(parameters)).append(") {\n        return ").append(operation.name).append('(')
+                .append(arguments).append(arguments.isEmpty() ? "" : ", ").append(operation.status).append(");\n    }\n");
+
+        source.append("\n    public CompletableFuture<").append(resultType).append("> ").append(operation.name).append('(')
+                .append(parameters(parameters)).append(parameters.isEmpty() ? "" : ", ").append("Integer expectedStatus) {\n");
+        for (Property parameter : operation.pathParameters) {
+            source.append("        checkArgument(").append(parameter.javaName).append(" != null, \"").append(parameter.javaName)
+                    .append(" cant be null\");\n");
+        }
+        if (operation.body != null) source.append("        checkArgument(body != null, \"body cant be null\");\n");
+        if (!operation.queryParameters.isEmpty()) {
+            source.append("        Map<String, Object> queryParams = new HashMap<>();\n");
+            for (Property parameter : operation.queryParameters) {
+                source.append("        if (").append(parameter.javaName).append(" != null) queryParams.put(\"").append(parameter.jsonName)
+                        .append("\", ").append(parameter.javaName).append(");\n");
+            }
+        }
+        source.append("        return api.sendAsync(ApiRequest.builder()\n")
+                .append("                .method(Method.").append(operation.method).append(")\n")
+                .append("                .url(").append(urlExpression(operation)).append(")\n")
+                .append("                .template(\"").append(template(operation.path)).append("\")\n");
+        if (!operation.queryParameters.isEmpty()) source.append("                .queryParams(queryParams)\n");
+        if (operation.body != null) {
+            source.append("                .body(JsonValues.toJson(body, ").append(operation.body.writerReference()).append("))\n");
+        }
+        source.append("                .expectedStatus(expectedStatus)\n                .build())");
+        if (operation.response != null) {
+            source.append("\n                .thenApply(response -> JsonValues.fromJson(response.asByteArray(), ")
+                    .append(operation.response.readerReference()).append("))");
+        }
+        source.append(";\n    }\n");
+    }
+
+    private static String urlExpression(Operation operation) {
+        StringBuilder url = new StringBuilder("baseUrl");
+        String path = operation.path.startsWith("/") ? operation.path.substring(1) : operation.path;
+        int start = 0;
+        while (start < path.length()) {
+            int open = path.indexOf('{', start);
+            if (open < 0) {
+                url.append(" + \"").append(path.substring(start)).append('"');
+                break;
+            }
+            if (open > start) url.append(" + \"").append(path, start, open).append('"');
+            int close = path.indexOf('}', open);
+            url.append(" + pathSegment(").append(javaName(path.substring(open + 1, close))).append(')');
+            start = close + 1;
+        }
+        return url.toString();
+    }
+
+    private static String template(String path) {
+        // same form as the hand written calls, e.g. "api/users/%s", latencies are grouped by it
+        return (path.startsWith("/") ? path.substring(1) : path).replaceAll("\\{[^}]*}", "%s");
+    }
+
+    // ---------------------------------------------------------------------------------------------------------- names
+
+    private static StringBuilder header(String javaPackage, Set<String> imports) {
+        StringBuilder source = new StringBuilder("// Generated by framework.codegen.OpenApiProcessor, do not edit\n")
+                .append("package ").append(javaPackage).append(";\n\n");
+        List<String> plain = imports.stream().filter(name -> !name.startsWith("static ")).collect(Collectors.toList());
+        List<String> statics = imports.stream().filter(name -> name.startsWith("static ")).collect(Collectors.toList());
+        for (String name : plain) {
+            if (!packageOf(name).equals(javaPackage) && !packageOf(name).equals("java.lang")) source.append("import ").append(name).append(";\n");
+        }
+        if (!statics.isEmpty()) {
+            source.append('\n');
+            statics.forEach(name -> source.append("import ").append(name).append(";\n"));
+        }
+        return source.append('\n');
+    }
+
+    private static String packageOf(String qualifiedName) {
+        return qualifiedName.substring(0, Math.max(0, qualifiedName.lastIndexOf('.')));
+    }
+
+    private static String parameters(List<Property> properties) {
+        return properties.stream()
+                .map(property -> property.type.javaType() + " " + property.javaName)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String accessor(String prefix, Property property) {
+        return prefix + Character.toUpperCase(property.javaName.charAt(0)) + property.javaName.substring(1);
+    }
+
+    /**
+     * first_name -> firstName, keywords get a trailing underscore.
+     */
+    static String javaName(String name) {
+        StringBuilder javaName = new StringBuilder();
+        boolean upper = false;
+        for (char c : name.toCharArray()) {
+            if (c == '_' || c == '$' || !Character.isJavaIdentifierPart(c)) {
+                upper = javaName.length() > 0;
+            } else {
+                javaName.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        if (javaName.length() == 0 || !Character.isJavaIdentifierStart(javaName.charAt(0))) javaName.insert(0, '_');
+        return SourceVersion.isKeyword(javaName) ? javaName + "_" : javaName.toString();
+    }
+
+    private static class Schema {
+
+        final String name;
+        final String javaPackage;
+        final String description;
+        final List<Property> properties = new ArrayList<>();
+
+        Schema(String name, String javaPackage, String description) {
+            this.name = name;
+            this.javaPackage = javaPackage;
+            this.description = description;
+        }
+
+        String qualifiedName() {
+            return javaPackage + "." + name;
+        }
+    }
+
+    private static class Property {
+
+        final String jsonName;
+        final String javaName;
+        final Type type;
+
+        Property(String jsonName, String javaName, Type type) {
+            this.jsonName = jsonName;
+            this.javaName = javaName;
+            this.type = type;
+        }
+    }
+
+    private static class Operation {
+
+        final String name;
+        final String method;
+        final String path;
+        final List<Property> pathParameters = new ArrayList<>();
+        final List<Property> queryParameters = new ArrayList<>();
+        Type body;
+        Type response;
+        int status;
+
+        Operation(String name, String method, String path) {
+            this.name = name;
+            this.method = method;
+            this.path = path;
+        }
+    }
+
+    /**
+     * A property type and how its values are written and read, a JsonValues method for simple types and the
+     * codec for schemas.
+     */
+    private static class Type {
+
+        // qualified name for simple types and schemas, null for lists
+        String qualifiedName;
+        // suffix of the JsonValues read/write methods
+        String valueMethod;
+        Schema schema;
+        Type element;
+
+        static Type simple(String qualifiedName, String valueMethod) {
+            Type type = new Type();
+            type.qualifiedName = qualifiedName;
+            type.valueMethod = valueMethod;
+            return type;
+        }
+
+        static Type ref(Schema schema) {
+            Type type = new Type();
+            type.schema = schema;
+            return type;
+        }
+
+        static Type list(Type element) {
+            Type type = new Type();
+            type.element = element;
+            return type;
+        }
+
+        String javaType() {
+            if (element != null) return "List<" + element.javaType() + ">";
+            if (schema != null) return schema.name;
+            return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+        }
+
+        void collectImports(Set<String> imports) {
+            if (element != null) {
+                imports.add("java.util.List");
+                element.collectImports(imports);
+            } else if (schema != null) {
+                // codecs are all in the client package, only the DTO may need an import
+                imports.add(schema.qualifiedName());
+            } else if (qualifiedName.contains(".")) {
+                imports.add(qualifiedName);
+            }
+        }
+
+        String writeCall(String value) {
+            if (element != null) return "JsonValues.writeList(" + value + ", generator, " + element.writerReference() + ")";
+            if (schema != null) return schema.name + "Codec.write(" + value + ", generator)";
+            return "JsonValues.write" + valueMethod + "(" + value + ", generator)";
+        }
+
+        String readCall() {
+            if (element != null) return "JsonValues.readList(parser, " + element.readerReference() + ")";
+            if (schema != null) return schema.name + "Codec.read(parser)";
+            return "JsonValues.read" + valueMethod + "(parser)";
+        }
+
+        String writerReference() {
+            if (element != null) return "(list, generator) -> JsonValues.writeList(list, generator, " + element.writerReference() + ")";
+            if (schema != null) return schema.name + "Codec::write";
+            return "JsonValues::write" + valueMethod;
+        }
+
+        String readerReference() {
+            if (element != null) return "parser -> JsonValues.readList(parser, " + element.readerReference() + ")";
+            if (schema != null) return schema.name + "Codec::read";
+            return "JsonValues::read" + valueMethod;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package framework.codegen;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a typed client, the DTOs and their reflection free JSON codecs from an OpenAPI description while
+ * the annotated package is compiled, see {@link OpenApiProcessor}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.PACKAGE, ElementType.TYPE})
+public @interface GenerateApiClient {
+
+    /**
+     * OpenAPI 3 description in JSON, a resource path such as "openapi/users.json".
+     */
+    String spec();
+
+    /**
+     * Simple name of the client class.
+     */
+    String clientName();
+
+    /**
+     * Package of the client and the codecs.
+     */
+    String clientPackage();
+
+    /**
+     * Package of the DTOs whose schema has no x-java-package.
+     */
+    String modelPackage();
+}
@@ -0,0 +1,85 @@
+package framework.codegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs {@link ApiClientGenerator} for every {@link GenerateApiClient} while javac compiles the main sources, the
+ * generated sources go to javac's generated sources directory (target/generated-sources/annotations) and are
+ * compiled in the same build. The spec is read from the class output, where the resources are copied before
+ * compiling. The generated Jackson modules are listed in META-INF/services, for {@code ObjectMapper.findModules}.
+ * Compiled on its own before the main sources and only run for them, see the compile-codegen and default-compile
+ * executions in the pom.
+ */
+@SupportedAnnotationTypes("framework.codegen.GenerateApiClient")
+public class OpenApiProcessor extends AbstractProcessor {
+
+    private static final String MODULES_SERVICE = "META-INF/services/com.fasterxml.jackson.databind.Module";
+
+    private final List<String> modules = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateApiClient.class)) {
+            GenerateApiClient client = element.getAnnotation(GenerateApiClient.class);
+            try {
+                generate(client, element);
+            } catch (IOException | RuntimeException e) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                        "Couldn't generate " + client.clientName() + " from " + client.spec() + ": " + e, element);
+            }
+        }
+        if (roundEnv.processingOver() && !modules.isEmpty()) writeModulesService();
+        return true;
+    }
+
+    private void generate(GenerateApiClient client, Element element) throws IOException {
+        Filer filer = processingEnv.getFiler();
+        JsonNode spec;
+        FileObject specFile = filer.getResource(StandardLocation.CLASS_OUTPUT, "", client.spec());
+        try (InputStream input = specFile.openInputStream()) {
+            spec = new ObjectMapper().readTree(input);
+        }
+        ApiClientGenerator generator = new ApiClientGenerator(spec, client.spec(), client.clientPackage(),
+                client.clientName(), client.modelPackage());
+        for (Map.Entry<String, String> source : generator.generate().entrySet()) {
+            try (Writer writer = filer.createSourceFile(source.getKey(), element).openWriter()) {
+                writer.write(source.getValue());
+            }
+        }
+        modules.add(generator.getModuleName());
+    }
+
+    private void writeModulesService() {
+        try (Writer writer = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", MODULES_SERVICE).openWriter()) {
+            for (String module : modules) {
+                writer.write(module + "\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Couldn't write " + MODULES_SERVICE + ": " + e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package framework.listener;
+
+import framework.ui.driver.BrowserParallelism;
+import lombok.extern.log4j.Log4j;
+import org.testng.IAlterSuiteListener;
+import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlTest;
+
+import java.util.List;
+
+/**
+ * Runs the methods of every {@code <test>} with a "browsers" parameter in parallel, on that many threads:
+ * a number, or auto to size it with {@link BrowserParallelism}.
+ */
+@Log4j
+public class BrowserParallelismListener implements IAlterSuiteListener {
+
+    public static final String BROWSERS = "browsers";
+
+    @Override
+    public void alter(List<XmlSuite> suites) {
+        for (XmlSuite suite : suites) {
+            for (XmlTest test : suite.getTests()) {
+                String browsers = test.getLocalParameters().get(BROWSERS);
+                if (browsers == null) continue;
+                int threads = browsers.trim().equalsIgnoreCase("auto") ? BrowserParallelism.browsers() : Integer.parseInt(browsers.trim());
+                // the driver pool's auto size follows
+                BrowserParallelism.require(threads);
+                test.setParallel(XmlSuite.ParallelMode.METHODS);
+                test.setThreadCount(threads);
+                log.info("Running the methods of " + test.getName() + " on " + threads + " threads");
+            }
+        }
+    }
+}
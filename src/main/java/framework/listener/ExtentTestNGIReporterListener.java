@@ -4,10 +4,17 @@ import com.aventstack.extentreports.ExtentReports;
 import com.aventstack.extentreports.ExtentTest;
 import com.aventstack.extentreports.MediaEntityBuilder;
 import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import framework.api.capture.Exchange;
+import framework.api.capture.ExchangeHistory;
+import framework.api.load.StepStats;
+import framework.api.mapping.JsonMapping;
+import framework.api.metrics.LatencyBudget;
+import framework.api.metrics.RequestLatencies;
 import lombok.extern.log4j.Log4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -23,10 +30,13 @@ import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 @Log4j
-public class ExtentTestNGIReporterListener implements IReporter {
+public class ExtentTestNGIReporterListener implements IReporter, ITestListener {
 
 	private static final String OUTPUT_FOLDER = "test-output/";
 	private static final String FILE_NAME = "Extent.html";
+	private static final String RECENT_EXCHANGES = "RecentExchanges";
+	private static final ObjectReader THROWABLE_READER = JsonMapping.reader(Throwable.class)
+			.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 	private ExtentReports extent;
 	private Map<String,String> knownFailures;
 	private List<String> softAssertScreenshots;
@@ -39,6 +49,17 @@ public class ExtentTestNGIReporterListener implements IReporter {
 			" with a yellow background.</li><li> Pages that where expected, but did not come are marked with a red border.</l>" +
 			"<li> Pages that appear, but where not expected are marked with a green border.</li></ul>";
 
+	@Override
+	public void onTestStart(ITestResult result) {
+		if (ExchangeHistory.isEnabled()) ExchangeHistory.current().clear();
+	}
+
+	@Override
+	public void onTestFailure(ITestResult result) {
+		// only the references are kept here, they are formatted when the report is built
+		if (ExchangeHistory.isEnabled()) result.setAttribute(RECENT_EXCHANGES, ExchangeHistory.current().snapshot());
+	}
+
 	@Override
 	public void generateReport(List<XmlSuite> xmlSuites, List<ISuite> suites, String outputDirectory) {
 		readKnownFailuresFromSuite(xmlSuites);
@@ -48,6 +69,7 @@ public class ExtentTestNGIReporterListener implements IReporter {
 		} else {
 			singleSuiteReporting(suites, null);
 		}
+		addRequestLatencies();
 		for (String s : Reporter.getOutput()) {
 			extent.setTestRunnerOutput(s);
 		}
@@ -162,6 +184,7 @@ public class ExtentTestNGIReporterListener implements IReporter {
 						test.log(status, result.getThrowable());
 						addFailureInfoForTest(test, result.getThrowable());
 					}
+					addRecentExchanges(test, result);
 				}
 				
 				Object webTest = result.getAttribute("WebTest");
@@ -171,6 +194,46 @@ public class ExtentTestNGIReporterListener implements IReporter {
 		}
 	}
 
+	private void addRequestLatencies() {
+		Map<String, List<StepStats>> endpoints = RequestLatencies.getStats();
+		if (endpoints.isEmpty()) {
+			return;
+		}
+		ExtentTest section = extent.createTest("Request latencies");
+		endpoints.forEach((endpoint, phases) -> {
+			String[][] table = new String[phases.size() + 1][];
+			table[0] = new String[]{"Phase", "Count", "Errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"};
+			for (int i = 0; i < phases.size(); i++) {
+				StepStats phase = phases.get(i);
+				table[i + 1] = new String[]{phase.getStep(), String.valueOf(phase.getCount()), String.valueOf(phase.getErrors()),
+						String.valueOf(phase.getP50()), String.valueOf(phase.getP90()), String.valueOf(phase.getP99()),
+						String.valueOf(phase.getP999()), String.valueOf(phase.getMax())};
+			}
+			section.info("<b>" + endpoint + "</b>");
+			section.info(MarkupHelper.createTable(table));
+		});
+		Map<LatencyBudget, Double> violations = RequestLatencies.getBudgetViolations();
+		for (LatencyBudget budget : RequestLatencies.getBudgets()) {
+			if (violations.containsKey(budget)) {
+				section.fail(String.format("Budget exceeded: %s, measured %.2fms", budget, violations.get(budget)));
+			} else {
+				section.pass("Budget met: " + budget);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void addRecentExchanges(ExtentTest test, ITestResult result) {
+		List<Exchange> exchanges = (List<Exchange>) result.getAttribute(RECENT_EXCHANGES);
+		if (exchanges == null || exchanges.isEmpty()) {
+			return;
+		}
+		String formatted = exchanges.stream().map(Exchange::format).collect(Collectors.joining("\n"));
+		test.info("<b>Last " + exchanges.size() + " HTTP exchanges</b>");
+		// inside the code block's textarea entities are shown as the characters they stand for
+		test.info(MarkupHelper.createCodeBlock(formatted.replace("&", "&amp;").replace("<", "&lt;")));
+	}
+
 	private void createTestOutPutFolder() {
 		File directory = new File("test-output");
 		if (! directory.exists()){
@@ -223,12 +286,10 @@ public class ExtentTestNGIReporterListener implements IReporter {
 
 	private void findSoftAssertFailureIds(Throwable resultThrowable) {
 		if (resultThrowable instanceof SoftAssertionError) {
-			ObjectMapper mapper = new ObjectMapper();
-			mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 			for (String error : ((SoftAssertionError) resultThrowable).getErrors()) {
 				try {
 					// Read exception and create a Throwable from
-					Throwable th = mapper.readValue(error, Throwable.class);
+					Throwable th = THROWABLE_READER.readValue(error);
 					softAssertFailureIds.add(getTestFailureId(th) + "#" + StringUtils.substringBetween(th.getMessage().replace(" ", ""), "[", "]"));
 
 				} catch (IOException e) {
@@ -240,12 +301,10 @@ public class ExtentTestNGIReporterListener implements IReporter {
 
 	private void addSoftAssertionFailuresForTest(ExtentTest test, Throwable resultThrowable ){
 		List<String> errors=new ArrayList<>();
-		ObjectMapper mapper = new ObjectMapper();
-		mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 		for (String error:((SoftAssertionError) resultThrowable).getErrors()){
 			try {
 				// Read exception and create a Throwable from
-				Throwable th = mapper.readValue(error,Throwable.class);
+				Throwable th = THROWABLE_READER.readValue(error);
 				// create screeenshot names
 				String screenShotFileName = null;
 				for (int i=0;i<th.getStackTrace().length;i++){
@@ -0,0 +1,193 @@
+package framework.logging;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.helpers.LogLog;
+import org.apache.log4j.spi.LoggingEvent;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * log4j appender that keeps formatting and IO off the logging thread: the caller only renders the message
+ * and copies it into a preallocated slot of a bounded ring, a background thread encodes the events to bytes
+ * and writes them in batches. A full ring either drops the event or makes the caller wait, see {@link OverflowPolicy}.
+ * <p>
+ * Options (log4j.properties): Target (System.out, System.err or a file path), BufferSize (ring slots, rounded up
+ * to a power of two), OverflowPolicy (DROP or BLOCK). Line numbers aren't written, they cost a stack walk per event.
+ */
+public class AsyncLogAppender extends AppenderSkeleton {
+
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Getter
+    @Setter
+    private String target = "System.out";
+    @Getter
+    @Setter
+    private int bufferSize = 8192;
+    @Getter
+    @Setter
+    private String overflowPolicy = OverflowPolicy.BLOCK.name();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private volatile LogEventRing ring;
+    private volatile Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean running;
+    private OverflowPolicy policy;
+    private FileChannel file;
+    private Thread shutdownHook;
+
+    @Override
+    public void activateOptions() {
+        policy = OverflowPolicy.valueOf(overflowPolicy.trim().toUpperCase());
+        ring = new LogEventRing(Integer.highestOneBit(Math.max(1, bufferSize) * 2 - 1));
+        try {
+            if (!target.startsWith("System.")) file = new FileOutputStream(target, true).getChannel();
+        } catch (IOException e) {
+            LogLog.error("Could not open log file " + target + ", logging to System.out", e);
+        }
+        LogEncoder encoder = new LogEncoder(WRITE_BUFFER_BYTES, this::write);
+        running = true;
+        writer = new Thread(() -> drainLoop(encoder), "async-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        // the writer is a daemon, without the hook the last events of the run would be lost
+        shutdownHook = new Thread(this::close, "async-log-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    @Override
+    protected void append(LoggingEvent event) {
+        LogEventRing ring = this.ring;
+        if (ring == null) return;
+        long sequence;
+        while ((sequence = ring.tryClaim()) < 0) {
+            if (policy == OverflowPolicy.DROP || !running) {
+                dropped.increment();
+                return;
+            }
+            wakeWriter();
+            LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+        }
+        LogEvent slot = ring.slot(sequence);
+        slot.timeStamp = event.getTimeStamp();
+        slot.level = event.getLevel();
+        slot.loggerName = event.getLoggerName();
+        slot.threadName = event.getThreadName();
+        // rendered here, the logged object may change once the caller goes on
+        slot.message = event.getRenderedMessage();
+        slot.throwable = event.getThrowableStrRep();
+        ring.publish(sequence);
+        if (writerParked) wakeWriter();
+    }
+
+    /**
+     * Events discarded by the DROP policy since the appender started.
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+        }
+        running = false;
+        Thread writer = this.writer;
+        if (writer != null) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            if (file != null) file.close();
+        } catch (IOException e) {
+            LogLog.error("Could not close log file " + target, e);
+        }
+        if (shutdownHook != null && Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // already shutting down
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresLayout() {
+        return false;
+    }
+
+    private void drainLoop(LogEncoder encoder) {
+        long reportedDrops = 0;
+        while (true) {
+            boolean stopping = !running;
+            int drained = ring.drain(event -> {
+                try {
+                    encoder.encode(event);
+                } catch (IOException e) {
+                    LogLog.error("Could not write log event", e);
+                }
+            });
+            long droppedEvents = dropped.sum() - reportedDrops;
+            reportedDrops += droppedEvents;
+            try {
+                if (droppedEvents > 0) encoder.encode(droppedNotice(droppedEvents));
+                encoder.flush();
+            } catch (IOException e) {
+                LogLog.error("Could not write log events", e);
+            }
+            if (stopping && ring.isEmpty()) return;
+            if (drained == 0) {
+                writerParked = true;
+                if (ring.isEmpty() && running) LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                writerParked = false;
+            }
+        }
+    }
+
+    private LogEvent droppedNotice(long droppedEvents) {
+        LogEvent notice = new LogEvent();
+        notice.timeStamp = System.currentTimeMillis();
+        notice.level = Level.WARN;
+        notice.loggerName = getClass().getName();
+        notice.threadName = Thread.currentThread().getName();
+        notice.message = droppedEvents + " log events dropped, the ring buffer of " + ring.capacity() + " events was full";
+        return notice;
+    }
+
+    private void write(byte[] bytes, int length) throws IOException {
+        if (file != null) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+            while (buffer.hasRemaining()) file.write(buffer);
+            return;
+        }
+        // looked up on every write, test runners replace System.out
+        PrintStream stream = "System.err".equals(target) ? System.err : System.out;
+        stream.write(bytes, 0, length);
+        stream.flush();
+    }
+
+    private void wakeWriter() {
+        Thread writer = this.writer;
+        if (writer != null) LockSupport.unpark(writer);
+    }
+}
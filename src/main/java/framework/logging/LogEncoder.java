@@ -0,0 +1,125 @@
+package framework.logging;
+
+import org.apache.log4j.Level;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encodes events straight into a reusable byte buffer as
+ * {@code yyyy-MM-dd HH:mm:ss LEVEL Logger [thread] - message}, only used by the writer thread.
+ * Timestamps are formatted once per second and logger names once per logger.
+ */
+final class LogEncoder {
+
+    interface Sink {
+        void write(byte[] bytes, int length) throws IOException;
+    }
+
+    private static final byte[] SEPARATOR = " - ".getBytes(StandardCharsets.US_ASCII);
+
+    private final ByteBuffer buffer;
+    private final Sink sink;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss ");
+    private final Map<String, byte[]> loggerNames = new HashMap<>();
+    private final Map<Level, byte[]> levels = new HashMap<>();
+
+    private long second = -1;
+    private byte[] timeStamp;
+
+    LogEncoder(int bufferSize, Sink sink) {
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.sink = sink;
+    }
+
+    void encode(LogEvent event) throws IOException {
+        put(timeStamp(event.timeStamp));
+        put(levels.computeIfAbsent(event.level, level -> bytes(String.format("%-5s ", level))));
+        put(loggerNames.computeIfAbsent(event.loggerName, name -> bytes(name.substring(name.lastIndexOf('.') + 1) + " [")));
+        putString(event.threadName);
+        put((byte) ']');
+        put(SEPARATOR);
+        putString(event.message);
+        put((byte) '\n');
+        if (event.throwable != null) {
+            for (String line : event.throwable) {
+                putString(line);
+                put((byte) '\n');
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        if (buffer.position() == 0) return;
+        sink.write(buffer.array(), buffer.position());
+        buffer.clear();
+    }
+
+    private byte[] timeStamp(long millis) {
+        long eventSecond = millis / 1000;
+        if (eventSecond != second) {
+            second = eventSecond;
+            timeStamp = bytes(dateFormat.format(new Date(millis)));
+        }
+        return timeStamp;
+    }
+
+    private void put(byte value) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(value);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        if (buffer.remaining() < bytes.length) flush();
+        if (bytes.length > buffer.capacity()) {
+            sink.write(bytes, bytes.length);
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    private void putString(String value) throws IOException {
+        if (value == null) value = "null";
+        byte[] array = buffer.array();
+        int position = buffer.position();
+        int length = value.length();
+        // ascii is copied char by char, the encoder only takes over from the first other char
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                buffer.position(position);
+                putEncoded(CharBuffer.wrap(value, i, length));
+                return;
+            }
+            if (position == array.length) {
+                buffer.position(position);
+                flush();
+                position = 0;
+            }
+            array[position++] = (byte) c;
+        }
+        buffer.position(position);
+    }
+
+    private void putEncoded(CharBuffer chars) throws IOException {
+        encoder.reset();
+        // overflow means the buffer is full, write it out and go on encoding where it stopped
+        while (encoder.encode(chars, buffer, true).isOverflow()) flush();
+        while (encoder.flush(buffer).isOverflow()) flush();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,27 @@
+package framework.logging;
+
+import org.apache.log4j.Level;
+
+/**
+ * Preallocated slot of {@link LogEventRing}, filled by the logging thread and read by the writer.
+ */
+final class LogEvent {
+
+    // sequence this slot was last published for, the writer only reads it once it matches
+    volatile long published = -1;
+
+    long timeStamp;
+    Level level;
+    String loggerName;
+    String threadName;
+    String message;
+    String[] throwable;
+
+    void clear() {
+        level = null;
+        loggerName = null;
+        threadName = null;
+        message = null;
+        throwable = null;
+    }
+}
@@ -0,0 +1,73 @@
+package framework.logging;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded multi producer, single consumer ring of reusable {@link LogEvent} slots.
+ * Producers claim a sequence, fill its slot and publish it, the consumer drains published slots in order.
+ */
+final class LogEventRing {
+
+    private final LogEvent[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    // next sequence to drain, only written by the consumer
+    private volatile long consumed;
+
+    LogEventRing(int capacity) {
+        checkArgument(capacity > 0 && Integer.bitCount(capacity) == 1, "capacity must be a power of two");
+        slots = new LogEvent[capacity];
+        for (int i = 0; i < capacity; i++) slots[i] = new LogEvent();
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return the claimed sequence, -1 when the ring is full
+     */
+    long tryClaim() {
+        while (true) {
+            long sequence = claimed.get();
+            if (sequence - consumed >= slots.length) return -1;
+            if (claimed.compareAndSet(sequence, sequence + 1)) return sequence;
+        }
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    LogEvent slot(long sequence) {
+        return slots[(int) (sequence & mask)];
+    }
+
+    void publish(long sequence) {
+        slot(sequence).published = sequence;
+    }
+
+    boolean isEmpty() {
+        return slot(consumed).published != consumed;
+    }
+
+    /**
+     * Hands every published event to the handler and frees its slot.
+     *
+     * @return number of drained events
+     */
+    int drain(Consumer<LogEvent> handler) {
+        long next = consumed;
+        int drained = 0;
+        LogEvent event;
+        while ((event = slot(next)).published == next) {
+            handler.accept(event);
+            event.clear();
+            next++;
+            // free slots as we go so blocked producers don't wait for the whole batch
+            if (++drained % 64 == 0) consumed = next;
+        }
+        consumed = next;
+        return drained;
+    }
+}
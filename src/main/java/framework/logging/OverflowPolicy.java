@@ -0,0 +1,11 @@
+package framework.logging;
+
+/**
+ * What a logging thread does when the ring buffer of {@link AsyncLogAppender} is full.
+ */
+public enum OverflowPolicy {
+    // the event is discarded and counted, the caller never waits
+    DROP,
+    // the caller waits until the writer frees a slot, nothing is lost
+    BLOCK
+}
@@ -5,35 +5,54 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
 
+/**
+ * Settings from config.properties, loaded once. A system property of the same name overrides the file, so a run
+ * can change any of them with -D; a missing or blank value falls back to the default given by the caller.
+ */
 public class ReadConfig {
 
-    InputStream inputStream;
+    private static final String PROP_FILE_NAME = "config.properties";
+    private static final Properties PROPERTIES = load();
 
     public String getPropValue(String propName) {
+        return System.getProperty(propName, PROPERTIES.getProperty(propName));
+    }
 
-        try {
-            Properties prop = new Properties();
-            String propFileName = "config.properties";
+    public String getPropValue(String propName, String defaultValue) {
+        String value = getPropValue(propName);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
 
-            inputStream = getClass().getClassLoader().getResourceAsStream(propFileName);
+    public int getIntValue(String propName, int defaultValue) {
+        String value = getPropValue(propName, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
 
-            if (inputStream != null) {
-                prop.load(inputStream);
-            } else {
-                throw new FileNotFoundException("property file '" + propFileName + "' not found in the classpath");
-            }
+    public long getLongValue(String propName, long defaultValue) {
+        String value = getPropValue(propName, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
 
-            return prop.getProperty(propName);
+    public double getDoubleValue(String propName, double defaultValue) {
+        String value = getPropValue(propName, null);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
 
-        } catch (Exception e) {
-            System.out.println("Exception: " + e);
-        } finally {
-            try {
-                inputStream.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+    public boolean getBooleanValue(String propName, boolean defaultValue) {
+        String value = getPropValue(propName, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    private static Properties load() {
+        Properties prop = new Properties();
+        try (InputStream inputStream = ReadConfig.class.getClassLoader().getResourceAsStream(PROP_FILE_NAME)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException("property file '" + PROP_FILE_NAME + "' not found in the classpath");
             }
+            prop.load(inputStream);
+        } catch (IOException e) {
+            System.out.println("Exception: " + e);
         }
-        return null;
+        return prop;
     }
 }
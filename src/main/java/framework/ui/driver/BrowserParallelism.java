@@ -0,0 +1,80 @@
+package framework.ui.driver;
+
+import com.sun.management.OperatingSystemMXBean;
+import framework.ui.common.ReadConfig;
+import lombok.extern.log4j.Log4j;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * How many browsers this machine runs side by side: one per core, as many as the available memory holds at
+ * ui.parallel.browserMemoryMb each, at most ui.parallel.maxBrowsers. Sizes the ui test threads and the driver pool.
+ */
+@Log4j
+public final class BrowserParallelism {
+
+    private static final Path MEMINFO = Paths.get("/proc/meminfo");
+
+    // sized once, the test threads and the pool must agree
+    private static Integer browsers;
+
+    private BrowserParallelism() {
+    }
+
+    public static synchronized int browsers() {
+        if (browsers != null) return browsers;
+        ReadConfig readConfig = new ReadConfig();
+        int browserMemoryMb = readConfig.getIntValue("ui.parallel.browserMemoryMb", 512);
+        int maxBrowsers = readConfig.getIntValue("ui.parallel.maxBrowsers", 8);
+        int cores = Runtime.getRuntime().availableProcessors();
+        long memoryMb = availableMemoryMb();
+        browsers = browsers(cores, memoryMb, browserMemoryMb, maxBrowsers);
+        log.info(String.format("Browser parallelism %d: %d cores, %dMB available at %dMB per browser, at most %d",
+                browsers, cores, memoryMb, browserMemoryMb, maxBrowsers));
+        return browsers;
+    }
+
+    /**
+     * Makes {@link #browsers()} at least this many, for tests given a fixed number of threads.
+     */
+    public static synchronized void require(int threads) {
+        if (browsers == null || browsers < threads) browsers = threads;
+    }
+
+    static int browsers(int cores, long availableMemoryMb, int browserMemoryMb, int maxBrowsers) {
+        long byMemory = availableMemoryMb < 0 ? cores : availableMemoryMb / browserMemoryMb;
+        return (int) Math.max(1, Math.min(maxBrowsers, Math.min(cores, byMemory)));
+    }
+
+    /**
+     * MemAvailable on Linux, which counts the reclaimable caches, the free physical memory elsewhere, -1 when unknown.
+     */
+    private static long availableMemoryMb() {
+        if (Files.isReadable(MEMINFO)) {
+            try {
+                List<String> lines = Files.readAllLines(MEMINFO);
+                for (String line : lines) {
+                    if (line.startsWith("MemAvailable:")) return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+                }
+            } catch (IOException | NumberFormatException e) {
+                log.debug("Couldn't read " + MEMINFO, e);
+            }
+        }
+        return freePhysicalMemoryMb();
+    }
+
+    // getFreeMemorySize() replaces it from JDK 14 only, the build targets 9
+    @SuppressWarnings("deprecation")
+    private static long freePhysicalMemoryMb() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof OperatingSystemMXBean) {
+            OperatingSystemMXBean os = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+            return os.getFreePhysicalMemorySize() / (1024 * 1024);
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,11 @@
+package framework.ui.driver;
+
+/**
+ * How the ui tests' browsers are launched, see {@link ChromeProfiles}.
+ */
+public enum BrowserProfile {
+    // headed and maximized, every resource loaded, what a user gets
+    FULL,
+    // headless with a fixed viewport, images, media, fonts and trackers blocked
+    LEAN
+}
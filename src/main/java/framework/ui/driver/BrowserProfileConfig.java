@@ -0,0 +1,48 @@
+package framework.ui.driver;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Browser profile settings, ui.browser.* in config.properties. The lean.* values only apply to the LEAN profile.
+ */
+@Data
+public class BrowserProfileConfig {
+
+    private BrowserProfile profile;
+    private boolean headless;
+    private int windowWidth;
+    private int windowHeight;
+    // declarativeNetRequest resource types, e.g. image, media, font
+    private List<String> blockedResourceTypes;
+    // host names, *.example.com also blocks example.com
+    private List<String> blockedHosts;
+    // never blocked, whatever the blocked hosts say, e.g. the job board the vacancies page embeds
+    private List<String> allowedHosts;
+
+    public BrowserProfileConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        profile = BrowserProfile.valueOf(readConfig.getPropValue("ui.browser.profile", "full").toUpperCase());
+        headless = readConfig.getBooleanValue("ui.browser.lean.headless", true);
+        String[] windowSize = readConfig.getPropValue("ui.browser.lean.windowSize", "1366x900").split("x");
+        checkArgument(windowSize.length == 2, "Window size must be <width>x<height>");
+        windowWidth = Integer.parseInt(windowSize[0].trim());
+        windowHeight = Integer.parseInt(windowSize[1].trim());
+        blockedResourceTypes = list(readConfig.getPropValue("ui.browser.lean.blockedResourceTypes", "image,media,font"));
+        blockedHosts = list(readConfig.getPropValue("ui.browser.lean.blockedHosts", ""));
+        allowedHosts = list(readConfig.getPropValue("ui.browser.allowedHosts", "*.lever.co"));
+    }
+
+    private static List<String> list(String value) {
+        List<String> list = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) list.add(item.trim());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,114 @@
+package framework.ui.driver;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Chrome options of each {@link BrowserProfile}. Without DevTools access in Selenium 3, the LEAN profile blocks
+ * with what Chrome offers from the command line: the blocked hosts don't resolve (--host-resolver-rules, the
+ * allowed hosts excluded), images are off in the content settings and the blocked resource types are dropped by
+ * a generated extension's declarativeNetRequest rule.
+ */
+public final class ChromeProfiles {
+
+    private static final Set<String> RESOURCE_TYPES = new HashSet<>(Arrays.asList("main_frame", "sub_frame", "stylesheet",
+            "script", "image", "font", "object", "xmlhttprequest", "ping", "csp_report", "media", "websocket", "other"));
+
+    // one extension directory per set of blocked types, shared by every browser of the run
+    private static final Map<List<String>, Path> EXTENSIONS = new ConcurrentHashMap<>();
+
+    private ChromeProfiles() {
+    }
+
+    public static ChromeOptions options(BrowserProfileConfig config) {
+        return options(config.getProfile(), config);
+    }
+
+    public static ChromeOptions options(BrowserProfile profile, BrowserProfileConfig config) {
+        ChromeOptions options = new ChromeOptions();
+        if (profile == BrowserProfile.FULL) return options;
+
+        if (config.isHeadless()) options.addArguments("--headless=new");
+        options.addArguments("--window-size=" + config.getWindowWidth() + "," + config.getWindowHeight());
+        if (!config.getBlockedHosts().isEmpty()) options.addArguments("--host-resolver-rules=" + hostResolverRules(config));
+        if (config.getBlockedResourceTypes().contains("image")) {
+            options.setExperimentalOption("prefs", Collections.singletonMap("profile.managed_default_content_settings.images", 2));
+        }
+        if (!config.getBlockedResourceTypes().isEmpty()) {
+            options.addArguments("--load-extension=" + blockingExtension(config.getBlockedResourceTypes()));
+            // recent Chrome builds ignore --load-extension unless this feature is off
+            options.addArguments("--disable-features=DisableLoadExtensionCommandLineSwitch");
+            options.setExperimentalOption("excludeSwitches", Collections.singletonList("disable-extensions"));
+        }
+        return options;
+    }
+
+    /**
+     * What a profile needs once the browser is up.
+     */
+    public static void prepare(BrowserProfile profile, WebDriver driver) {
+        if (profile == BrowserProfile.FULL) driver.manage().window().maximize();
+    }
+
+    private static String hostResolverRules(BrowserProfileConfig config) {
+        // exclusions are applied before the mappings, wherever they are in the list
+        String excluded = config.getAllowedHosts().stream()
+                .flatMap(ChromeProfiles::hostPatterns)
+                .map(host -> "EXCLUDE " + host)
+                .collect(Collectors.joining(","));
+        String blocked = config.getBlockedHosts().stream()
+                .flatMap(ChromeProfiles::hostPatterns)
+                .map(host -> "MAP " + host + " ~NOTFOUND")
+                .collect(Collectors.joining(","));
+        return excluded.isEmpty() ? blocked : excluded + "," + blocked;
+    }
+
+    /**
+     * *.example.com doesn't match example.com itself in the resolver rules, both are listed.
+     */
+    private static Stream<String> hostPatterns(String host) {
+        return host.startsWith("*.") ? Stream.of(host.substring(2), host) : Stream.of(host);
+    }
+
+    private static Path blockingExtension(List<String> resourceTypes) {
+        for (String type : resourceTypes) {
+            checkArgument(RESOURCE_TYPES.contains(type), "Unknown resource type " + type + ", expected one of " + RESOURCE_TYPES);
+        }
+        return EXTENSIONS.computeIfAbsent(resourceTypes, types -> {
+            try {
+                Path directory = Files.createTempDirectory("lean-profile");
+                // deleted in reverse order, the files before the directory
+                directory.toFile().deleteOnExit();
+                String manifest = "{\"manifest_version\":3,\"name\":\"lean-profile\",\"version\":\"1.0\","
+                        + "\"permissions\":[\"declarativeNetRequest\"],\"host_permissions\":[\"<all_urls>\"],"
+                        + "\"declarative_net_request\":{\"rule_resources\":[{\"id\":\"block\",\"enabled\":true,\"path\":\"rules.json\"}]}}";
+                String rules = "[{\"id\":1,\"priority\":1,\"action\":{\"type\":\"block\"},\"condition\":{\"resourceTypes\":["
+                        + types.stream().map(type -> "\"" + type + "\"").collect(Collectors.joining(",")) + "]}}]";
+                Files.write(directory.resolve("manifest.json"), manifest.getBytes(StandardCharsets.UTF_8));
+                Files.write(directory.resolve("rules.json"), rules.getBytes(StandardCharsets.UTF_8));
+                directory.resolve("manifest.json").toFile().deleteOnExit();
+                directory.resolve("rules.json").toFile().deleteOnExit();
+                return directory.toAbsolutePath();
+            } catch (IOException e) {
+                throw new WebDriverException("Couldn't write the blocking extension", e);
+            }
+        });
+    }
+}
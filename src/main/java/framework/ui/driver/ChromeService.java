@@ -0,0 +1,274 @@
+package framework.ui.driver;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import lombok.extern.log4j.Log4j;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One chromedriver process shared by every browser session of the run. The binary is resolved with
+ * WebDriverManager only when there's no configured one and the one remembered in the cache file is missing or
+ * older than cacheTtlHours, so most runs start it without version lookups or network calls. The service is
+ * started on the first session; sessions are RemoteWebDrivers of its url, quitting them leaves it running
+ * (a ChromeDriver would stop its service on quit).
+ * When Chrome was updated past the cached chromedriver, a new one is resolved and started next to the old one,
+ * which keeps running until the last of its sessions quits, so the sessions of other threads aren't killed.
+ */
+@Log4j
+public class ChromeService {
+
+    private final ChromeServiceConfig config;
+
+    // guarded by this
+    private Driver current;
+    // replaced by a newer chromedriver, stopped once their last session quits
+    private final Set<Driver> retired = new HashSet<>();
+    private String binary;
+    private String binarySource;
+    private long resolveNanos;
+    private long serviceStartNanos;
+
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder sessionNanos = new LongAdder();
+
+    public ChromeService(ChromeServiceConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Starts a browser session, and the service first when it isn't running.
+     */
+    public WebDriver newSession(ChromeOptions options) {
+        long start = System.nanoTime();
+        Driver driver = driver();
+        WebDriver session;
+        try {
+            session = driver.newSession(options);
+        } catch (SessionNotCreatedException e) {
+            // other failures are often transient, e.g. many browsers launched at once, and other sessions still use it
+            if (!isVersionMismatch(e) || !replaceCachedBinary(driver)) throw e;
+            log.info("Chromedriver from the cache doesn't support this Chrome, resolving it again: " + e.getMessage());
+            session = driver().newSession(options);
+        }
+        sessions.increment();
+        sessionNanos.add(System.nanoTime() - start);
+        return session;
+    }
+
+    public synchronized ChromeServiceStats getStats() {
+        long count = sessions.sum();
+        return new ChromeServiceStats(binarySource, binary, resolveNanos / 1e6, serviceStartNanos / 1e6, count,
+                count == 0 ? 0 : sessionNanos.sum() / (double) count / 1_000_000);
+    }
+
+    /**
+     * Stops every chromedriver of the run, sessions still open are closed with it.
+     */
+    public synchronized void stop() {
+        if (current != null) current.stop();
+        retired.forEach(Driver::stop);
+        retired.clear();
+        current = null;
+    }
+
+    private synchronized Driver driver() {
+        if (current == null || !current.service.isRunning()) {
+            // died, nothing can be left running on it
+            if (current != null) current.stop();
+            current = start();
+        }
+        return current;
+    }
+
+    private Driver start() {
+        if (binary == null) resolveBinary();
+        long start = System.nanoTime();
+        ChromeDriverService started = new ChromeDriverService.Builder()
+                .usingDriverExecutable(new File(binary))
+                .usingAnyFreePort()
+                .withSilent(true)
+                .build();
+        try {
+            started.start();
+        } catch (IOException e) {
+            throw new WebDriverException("Couldn't start chromedriver " + binary, e);
+        }
+        serviceStartNanos = System.nanoTime() - start;
+        log.info(getStats());
+        return new Driver(started);
+    }
+
+    private void resolveBinary() {
+        long start = System.nanoTime();
+        if (!config.getBinary().isEmpty()) {
+            binary = config.getBinary();
+            binarySource = "configured";
+        } else if ((binary = readCache()) != null) {
+            binarySource = "cached";
+        } else {
+            WebDriverManager chromedriver = WebDriverManager.chromedriver().avoidExport();
+            chromedriver.setup();
+            binary = chromedriver.getDownloadedDriverPath();
+            binarySource = "resolved";
+            writeCache(binary);
+        }
+        resolveNanos = System.nanoTime() - start;
+    }
+
+    private static boolean isVersionMismatch(SessionNotCreatedException e) {
+        return e.getMessage() != null && e.getMessage().contains("only supports Chrome version");
+    }
+
+    /**
+     * Resolves and starts a new chromedriver in place of one from the cache, then retires the old one.
+     *
+     * @return false when the failed one wasn't from the cache, true once a session can be retried
+     */
+    private synchronized boolean replaceCachedBinary(Driver failed) {
+        // another thread already replaced it
+        if (failed != current) return true;
+        if (!"cached".equals(binarySource)) return false;
+        try {
+            Files.deleteIfExists(Paths.get(config.getCacheFile()));
+        } catch (IOException e) {
+            log.warn("Couldn't delete " + config.getCacheFile(), e);
+        }
+        String failedBinary = binary;
+        binary = null;
+        // started first, when it fails the old one is still there for the sessions using it
+        try {
+            current = start();
+        } catch (RuntimeException e) {
+            binary = failedBinary;
+            throw e;
+        }
+        if (!failed.retire()) retired.add(failed);
+        return true;
+    }
+
+    private synchronized void stopped(Driver driver) {
+        retired.remove(driver);
+    }
+
+    private String readCache() {
+        Path cacheFile = Paths.get(config.getCacheFile());
+        if (!Files.isRegularFile(cacheFile)) return null;
+        Properties cache = new Properties();
+        String path;
+        long resolvedAt;
+        try (InputStream input = Files.newInputStream(cacheFile)) {
+            cache.load(input);
+            path = cache.getProperty("path");
+            resolvedAt = Long.parseLong(cache.getProperty("resolvedAt", "0"));
+        } catch (IOException | IllegalArgumentException e) {
+            // IllegalArgumentException: a malformed escape or resolvedAt, e.g. a file truncated while written
+            log.warn("Couldn't read " + cacheFile + ", resolving chromedriver again", e);
+            return null;
+        }
+        boolean expired = System.currentTimeMillis() - resolvedAt > TimeUnit.HOURS.toMillis(config.getCacheTtlHours());
+        return path == null || expired || !new File(path).canExecute() ? null : path;
+    }
+
+    /**
+     * A running chromedriver and the sessions open on it.
+     */
+    private class Driver {
+
+        private final ChromeDriverService service;
+        // guarded by this
+        private int openSessions;
+        private boolean retired;
+
+        Driver(ChromeDriverService service) {
+            this.service = service;
+        }
+
+        WebDriver newSession(ChromeOptions options) {
+            // counted before the session exists, so the service isn't stopped while it's being created
+            opened();
+            try {
+                return new RemoteWebDriver(service.getUrl(), options) {
+                    @Override
+                    public void quit() {
+                        try {
+                            super.quit();
+                        } finally {
+                            closed();
+                        }
+                    }
+                };
+            } catch (RuntimeException e) {
+                closed();
+                throw e;
+            }
+        }
+
+        private synchronized void opened() {
+            openSessions++;
+        }
+
+        private void closed() {
+            boolean stop;
+            synchronized (this) {
+                openSessions--;
+                stop = retired && openSessions == 0;
+            }
+            if (stop) {
+                stop();
+                stopped(this);
+            }
+        }
+
+        /**
+         * @return true when it was stopped straight away, false when sessions still use it
+         */
+        boolean retire() {
+            synchronized (this) {
+                retired = true;
+                if (openSessions > 0) return false;
+            }
+            stop();
+            return true;
+        }
+
+        void stop() {
+            try {
+                service.stop();
+            } catch (RuntimeException e) {
+                log.warn("Chromedriver didn't stop cleanly", e);
+            }
+        }
+    }
+
+    private void writeCache(String path) {
+        Path cacheFile = Paths.get(config.getCacheFile());
+        Properties cache = new Properties();
+        cache.setProperty("path", path);
+        cache.setProperty("resolvedAt", Long.toString(System.currentTimeMillis()));
+        try {
+            if (cacheFile.getParent() != null) Files.createDirectories(cacheFile.getParent());
+            try (OutputStream output = Files.newOutputStream(cacheFile)) {
+                cache.store(output, "chromedriver resolved by WebDriverManager");
+            }
+        } catch (IOException e) {
+            log.warn("Couldn't write " + cacheFile + ", chromedriver will be resolved again next run", e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package framework.ui.driver;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+import java.io.File;
+
+/**
+ * Chromedriver settings, ui.chromedriver.* in config.properties, see {@link ChromeService}.
+ */
+@Data
+public class ChromeServiceConfig {
+
+    // chromedriver to use as is, empty to resolve it with WebDriverManager; -Dwebdriver.chrome.driver works too
+    private String binary;
+    // where the resolved binary's path is remembered between runs
+    private String cacheFile;
+    // how long a remembered binary is used before resolving it again, e.g. after a Chrome update
+    private int cacheTtlHours;
+
+    public ChromeServiceConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        binary = readConfig.getPropValue("ui.chromedriver.binary", System.getProperty("webdriver.chrome.driver", ""));
+        cacheFile = readConfig.getPropValue("ui.chromedriver.cacheFile",
+                System.getProperty("user.home") + File.separator + ".cache" + File.separator + "selenium" + File.separator + "chromedriver.properties");
+        cacheTtlHours = readConfig.getIntValue("ui.chromedriver.cacheTtlHours", 24);
+    }
+}
@@ -0,0 +1,21 @@
+package framework.ui.driver;
+
+import lombok.Value;
+
+@Value
+public class ChromeServiceStats {
+
+    // configured, cached or resolved, null until the service started
+    String binarySource;
+    String binary;
+    double resolveMillis;
+    double serviceStartMillis;
+    long sessions;
+    double averageSessionMillis;
+
+    @Override
+    public String toString() {
+        return String.format("Chromedriver: %s binary %s in %.0fms, service started in %.0fms, sessions=%d (avg %.0fms)",
+                binarySource, binary, resolveMillis, serviceStartMillis, sessions, averageSessionMillis);
+    }
+}
@@ -0,0 +1,38 @@
+package framework.ui.driver;
+
+import org.openqa.selenium.WebDriver;
+
+/**
+ * Exclusive use of a pooled browser session until closed. Closing it resets the session and hands it back
+ * to the pool, don't quit the driver.
+ */
+public class DriverLease implements AutoCloseable {
+
+    private final DriverPool pool;
+    private final DriverPool.Session session;
+    private boolean broken;
+    private boolean closed;
+
+    DriverLease(DriverPool pool, DriverPool.Session session) {
+        this.pool = pool;
+        this.session = session;
+    }
+
+    public WebDriver getDriver() {
+        return session.driver;
+    }
+
+    /**
+     * The session is quit instead of reused when the lease is closed, e.g. after the browser crashed.
+     */
+    public void markBroken() {
+        broken = true;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        pool.release(session, broken);
+    }
+}
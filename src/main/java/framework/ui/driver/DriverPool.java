@@ -0,0 +1,288 @@
+package framework.ui.driver;
+
+import lombok.extern.log4j.Log4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Browser sessions launched ahead and reused across tests. {@link #lease()} hands out an idle session, only
+ * waiting for a launch when all of them are in use; closing the lease resets the session in the background
+ * (extra windows closed, storage and cookies of the current site cleared, timeouts back to 0, about:blank) and
+ * puts it back. Sessions are quit and replaced after maxUses leases, or when a reset or the health check on
+ * lease fails.
+ */
+@Log4j
+public class DriverPool {
+
+    private static final String CLEAR_STORAGE = "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}";
+
+    private final Supplier<WebDriver> launcher;
+    private final DriverPoolConfig config;
+    private final BlockingQueue<Session> idle = new LinkedBlockingQueue<>();
+    // every session launched and not quit yet, idle, leased or being reset
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers;
+
+    private final LongAdder launched = new LongAdder();
+    private final LongAdder failedLaunches = new LongAdder();
+    private final LongAdder launchNanos = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+    private final LongAdder leases = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+
+    private int launching;
+    private volatile RuntimeException lastLaunchError;
+    private volatile boolean closed;
+
+    /**
+     * @param launcher starts a new browser session, called from the pool's threads
+     */
+    public DriverPool(Supplier<WebDriver> launcher, DriverPoolConfig config) {
+        checkArgument(config.getSize() > 0, "Driver pool size must be positive");
+        checkArgument(config.getMaxUses() > 0, "Driver pool max uses must be positive");
+        this.launcher = launcher;
+        this.config = config;
+        AtomicInteger threads = new AtomicInteger();
+        workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "driver-pool-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts launching browsers up to the pool size without waiting for them.
+     */
+    public DriverPool warmUp() {
+        fill();
+        return this;
+    }
+
+    /**
+     * Hands out an idle, healthy session, exclusively until the lease is closed.
+     */
+    public DriverLease lease() {
+        checkState(!closed, "Driver pool is shut down");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getLeaseTimeoutSeconds());
+        boolean counted = false;
+        while (true) {
+            Session session = idle.poll();
+            if (session == null) {
+                if (!counted) {
+                    waited.increment();
+                    counted = true;
+                }
+                session = awaitIdle(deadline);
+            }
+            if (session.isHealthy()) {
+                session.uses++;
+                leases.increment();
+                return new DriverLease(this, session);
+            }
+            log.info("Pooled browser session failed its health check, replacing it");
+            recycle(session);
+        }
+    }
+
+    public DriverPoolStats getStats() {
+        int idleCount = idle.size();
+        int launchingCount;
+        synchronized (this) {
+            launchingCount = launching;
+        }
+        long count = launched.sum();
+        return new DriverPoolStats(idleCount, Math.max(0, sessions.size() - idleCount), launchingCount, count,
+                failedLaunches.sum(), recycled.sum(), leases.sum(), waited.sum(),
+                count == 0 ? 0 : launchNanos.sum() / (double) count / 1_000_000);
+    }
+
+    /**
+     * Quits every session, leased ones included, and waits for the browsers to close.
+     */
+    public void shutdown() {
+        closed = true;
+        idle.clear();
+        List<Session> open = new ArrayList<>(sessions);
+        sessions.clear();
+        for (Session session : open) {
+            submit(() -> quit(session));
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(60, TimeUnit.SECONDS)) log.warn("Browsers still closing after 60s, " + getStats());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void release(Session session, boolean broken) {
+        if (closed || broken || session.uses >= config.getMaxUses()) {
+            recycle(session);
+            return;
+        }
+        submit(() -> {
+            if (!reset(session)) {
+                log.info("Pooled browser session couldn't be reset, replacing it");
+                recycle(session);
+            } else if (!closed) {
+                idle.offer(session);
+            }
+            // else quit by shutdown, it's still one of the sessions
+        });
+    }
+
+    private Session awaitIdle(long deadline) {
+        fill();
+        while (true) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new IllegalStateException("No browser session after " + config.getLeaseTimeoutSeconds() + "s, " + getStats(), lastLaunchError);
+            }
+            Session session;
+            try {
+                session = idle.poll(Math.min(remaining, TimeUnit.SECONDS.toNanos(1)), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for a browser session", e);
+            }
+            if (session != null) return session;
+            synchronized (this) {
+                // nothing to wait for when every launch failed
+                if (launching == 0 && sessions.isEmpty() && lastLaunchError != null) {
+                    throw new IllegalStateException("Couldn't launch a browser, " + getStats(), lastLaunchError);
+                }
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Launches sessions up to the pool size, counting the ones already launching.
+     */
+    private void fill() {
+        int missing;
+        synchronized (this) {
+            if (closed) return;
+            missing = config.getSize() - sessions.size() - launching;
+            if (missing <= 0) return;
+            launching += missing;
+        }
+        for (int i = 0; i < missing; i++) {
+            submit(this::launch);
+        }
+    }
+
+    private void launch() {
+        long start = System.nanoTime();
+        Session session = null;
+        try {
+            WebDriver driver = launcher.get();
+            try {
+                session = new Session(driver);
+            } catch (RuntimeException e) {
+                driver.quit();
+                throw e;
+            }
+            launchNanos.add(System.nanoTime() - start);
+            launched.increment();
+            lastLaunchError = null;
+        } catch (RuntimeException e) {
+            failedLaunches.increment();
+            lastLaunchError = e;
+            log.warn("Couldn't launch a pooled browser session", e);
+        }
+        synchronized (this) {
+            launching--;
+            if (session != null && !closed) sessions.add(session);
+        }
+        if (session == null) return;
+        if (closed) quit(session);
+        else idle.offer(session);
+    }
+
+    private void recycle(Session session) {
+        recycled.increment();
+        sessions.remove(session);
+        submit(() -> quit(session));
+        fill();
+    }
+
+    private static boolean reset(Session session) {
+        WebDriver driver = session.driver;
+        try {
+            Set<String> windows = driver.getWindowHandles();
+            if (windows.isEmpty()) return false;
+            if (!windows.contains(session.window)) session.window = windows.iterator().next();
+            for (String window : windows) {
+                if (!window.equals(session.window)) driver.switchTo().window(window).close();
+            }
+            driver.switchTo().window(session.window);
+            // only the current site's, there's no way to reach the others' with the webdriver protocol
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE);
+            driver.manage().deleteAllCookies();
+            driver.manage().timeouts().implicitlyWait(0, TimeUnit.SECONDS);
+            driver.navigate().to("about:blank");
+            return true;
+        } catch (WebDriverException e) {
+            log.debug("Reset of a pooled browser session failed", e);
+            return false;
+        }
+    }
+
+    private static void quit(Session session) {
+        try {
+            session.driver.quit();
+        } catch (WebDriverException e) {
+            log.debug("Quitting a pooled browser session failed", e);
+        }
+    }
+
+    private void submit(Runnable task) {
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            // shut down, run it here
+            task.run();
+        }
+    }
+
+    static class Session {
+
+        final WebDriver driver;
+        // window the session was launched with, the one kept by the reset
+        String window;
+        // leases so far, only touched by the thread holding the session
+        int uses;
+
+        Session(WebDriver driver) {
+            this.driver = driver;
+            this.window = driver.getWindowHandle();
+        }
+
+        boolean isHealthy() {
+            try {
+                return !driver.getWindowHandles().isEmpty();
+            } catch (WebDriverException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package framework.ui.driver;
+
+import framework.ui.common.ReadConfig;
+import lombok.Data;
+
+/**
+ * Browser session pool settings, ui.driver.pool.* in config.properties.
+ */
+@Data
+public class DriverPoolConfig {
+
+    // browsers launched ahead and kept open between tests, auto sizes it with BrowserParallelism
+    private int size;
+    // a session is quit and replaced after this many leases, long lived browsers grow and slow down
+    private int maxUses;
+    private int leaseTimeoutSeconds;
+
+    public DriverPoolConfig() {
+        ReadConfig readConfig = new ReadConfig();
+        String configuredSize = readConfig.getPropValue("ui.driver.pool.size", "auto");
+        size = configuredSize.equalsIgnoreCase("auto") ? BrowserParallelism.browsers() : Integer.parseInt(configuredSize);
+        maxUses = readConfig.getIntValue("ui.driver.pool.maxUses", 20);
+        leaseTimeoutSeconds = readConfig.getIntValue("ui.driver.pool.leaseTimeoutSeconds", 120);
+    }
+}
@@ -0,0 +1,25 @@
+package framework.ui.driver;
+
+import lombok.Value;
+
+@Value
+public class DriverPoolStats {
+
+    int idle;
+    int leased;
+    int launching;
+    long launched;
+    long failedLaunches;
+    // sessions quit for reaching maxUses, failing their reset or health check
+    long recycled;
+    long leases;
+    // leases that found no idle session and had to wait for one
+    long waited;
+    double averageLaunchMillis;
+
+    @Override
+    public String toString() {
+        return String.format("Driver pool: idle=%d, leased=%d, launching=%d, launched=%d (failed %d, avg %.0fms), recycled=%d, leases=%d (waited %d)",
+                idle, leased, launching, launched, failedLaunches, averageLaunchMillis, recycled, leases, waited);
+    }
+}
@@ -0,0 +1,21 @@
+package framework.ui.driver;
+
+import lombok.Value;
+
+@Value
+public class PageLoadStats {
+
+    String profile;
+    long loads;
+    // navigation start to the end of the load event
+    double averageLoadMillis;
+    double averageDomContentLoadedMillis;
+    // images, scripts, fonts... fetched by the page
+    double averageResources;
+
+    @Override
+    public String toString() {
+        return String.format("Page loads with the %s profile: loads=%d, load avg %.0fms, DOMContentLoaded avg %.0fms, resources avg %.1f",
+                profile, loads, averageLoadMillis, averageDomContentLoadedMillis, averageResources);
+    }
+}
@@ -0,0 +1,55 @@
+package framework.ui.driver;
+
+import lombok.extern.log4j.Log4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Page load times of a browser profile, read from the Navigation Timing API of the page just loaded.
+ */
+@Log4j
+public class PageLoads {
+
+    private static final String TIMING = "var t = window.performance.timing;"
+            + " return [t.loadEventEnd - t.navigationStart, t.domContentLoadedEventEnd - t.navigationStart,"
+            + " window.performance.getEntriesByType('resource').length];";
+
+    private final String profile;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadMillis = new LongAdder();
+    private final LongAdder domContentLoadedMillis = new LongAdder();
+    private final LongAdder resources = new LongAdder();
+
+    public PageLoads(String profile) {
+        this.profile = profile;
+    }
+
+    /**
+     * Records the load of the driver's current page, pages still loading or without timing (about:blank) are skipped.
+     */
+    public void record(WebDriver driver) {
+        try {
+            @SuppressWarnings("unchecked")
+            List<Number> timing = (List<Number>) ((JavascriptExecutor) driver).executeScript(TIMING);
+            if (timing == null || timing.get(0).longValue() <= 0) return;
+            loads.increment();
+            loadMillis.add(timing.get(0).longValue());
+            domContentLoadedMillis.add(timing.get(1).longValue());
+            resources.add(timing.get(2).longValue());
+        } catch (WebDriverException | ClassCastException e) {
+            log.debug("No page timing of " + profile + " profile", e);
+        }
+    }
+
+    public PageLoadStats getStats() {
+        long count = loads.sum();
+        return new PageLoadStats(profile, count,
+                count == 0 ? 0 : loadMillis.sum() / (double) count,
+                count == 0 ? 0 : domContentLoadedMillis.sum() / (double) count,
+                count == 0 ? 0 : resources.sum() / (double) count);
+    }
+}
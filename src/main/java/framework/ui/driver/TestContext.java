@@ -0,0 +1,65 @@
+package framework.ui.driver;
+
+import org.openqa.selenium.WebDriver;
+import org.testng.asserts.SoftAssert;
+
+/**
+ * Browser and soft assertions of the test running on the calling thread. TestNG runs a test's before and after
+ * methods on the test's own thread, so with parallel="methods" each test only ever sees its own browser and its
+ * own soft failures, nothing mutable is shared between the threads.
+ */
+public final class TestContext {
+
+    private static final ThreadLocal<TestContext> CURRENT = new ThreadLocal<>();
+
+    private final SoftAssert softly = new SoftAssert();
+    private DriverLease lease;
+
+    private TestContext() {
+    }
+
+    /**
+     * Starts the context of the test about to run on this thread, ending the one a previous test left behind.
+     */
+    public static TestContext begin() {
+        end();
+        TestContext context = new TestContext();
+        CURRENT.set(context);
+        return context;
+    }
+
+    public static TestContext current() {
+        TestContext context = CURRENT.get();
+        if (context == null) {
+            throw new IllegalStateException("No test context on " + Thread.currentThread().getName() + ", it's begun before each test method");
+        }
+        return context;
+    }
+
+    /**
+     * Ends the calling thread's context, its browser goes back to the pool.
+     */
+    public static void end() {
+        TestContext context = CURRENT.get();
+        CURRENT.remove();
+        if (context != null && context.lease != null) context.lease.close();
+    }
+
+    public void setLease(DriverLease lease) {
+        if (this.lease != null) this.lease.close();
+        this.lease = lease;
+    }
+
+    public WebDriver getDriver() {
+        if (lease == null) throw new IllegalStateException("No browser leased for the test on " + Thread.currentThread().getName());
+        return lease.getDriver();
+    }
+
+    public DriverLease getLease() {
+        return lease;
+    }
+
+    public SoftAssert getSoftly() {
+        return softly;
+    }
+}
@@ -35,12 +35,15 @@ public class BasePageActions {
     protected String url;
     protected String originalWindowHandle;
     protected static final int TIMEOUT = 60;
+    // remembers the @FindBy locator of every field initElements fills in
+    private final LocatorAwareFieldDecorator locators;
 
     @SuppressWarnings({"unchecked"})
     public BasePageActions(WebDriver driver) {
 
         this.driver = driver;
-        PageFactory.initElements(driver, this);
+        locators = new LocatorAwareFieldDecorator(driver);
+        PageFactory.initElements(locators, this);
         originalWindowHandle = driver.getWindowHandle();
     }
 
@@ -283,7 +286,7 @@ public class BasePageActions {
 
     public boolean isElementPresent(WebElement element) {
         checkArgument(element != null, "Web element can't be null");
-        List<WebElement> elements = driver.findElements(returnElement(element.toString()));
+        List<WebElement> elements = driver.findElements(locatorOf(element));
         return 0 != elements.size();
     }
 
@@ -297,13 +300,13 @@ public class BasePageActions {
 
     public boolean isElementNotPresent(WebElement element) {
         checkArgument(element != null, "Web element can't be null");
-        return isElementNotPresent(returnElement(element.toString()));
+        return isElementNotPresent(locatorOf(element));
     }
 
     public boolean isElementNotPresentWithTimeout(WebElement element, int timeOut) {
         checkArgument(element != null, "Web element can't be null");
         driver.manage().timeouts().implicitlyWait(timeOut, TimeUnit.SECONDS);
-        boolean isElementNotFound = isElementNotPresent(returnElement(element.toString()));
+        boolean isElementNotFound = isElementNotPresent(locatorOf(element));
         driver.manage().timeouts().implicitlyWait(TIMEOUT, TimeUnit.SECONDS);
         return isElementNotFound;
     }
@@ -319,14 +322,30 @@ public class BasePageActions {
     public boolean checkAbsenceOfAllElements(List<WebElement> elements) {
         checkArgument(elements != null && !elements.isEmpty(), "You must provide the elements");
         driver.manage().timeouts().implicitlyWait(1, TimeUnit.SECONDS);
-        for (WebElement element : elements) {
-            if (driver.findElements(returnElement(element.toString())).size() > 0) {
-                driver.manage().timeouts().implicitlyWait(TIMEOUT, TimeUnit.SECONDS);
-                return false;
+        try {
+            // a page's list field is all found by one locator, a single lookup answers for every element
+            By listLocator = locators.locatorOf(elements);
+            if (listLocator != null) {
+                return driver.findElements(listLocator).isEmpty();
+            }
+            for (WebElement element : elements) {
+                if (driver.findElements(locatorOf(element)).size() > 0) {
+                    return false;
+                }
             }
+            return true;
+        } finally {
+            driver.manage().timeouts().implicitlyWait(TIMEOUT, TimeUnit.SECONDS);
         }
-        driver.manage().timeouts().implicitlyWait(TIMEOUT, TimeUnit.SECONDS);
-        return true;
+    }
+
+    /**
+     * Locator of a page field recorded when the page was initialised, elements found some other way still have
+     * theirs read back from toString().
+     */
+    protected By locatorOf(WebElement element) {
+        By by = locators.locatorOf(element);
+        return by != null ? by : returnElement(element.toString());
     }
 
     private By returnElement(String stringElement) {
@@ -437,7 +456,7 @@ public class BasePageActions {
 
     public void presenceOfElementLocated(WebElement element) {
         new WebDriverWait(driver, TIMEOUT)
-                .until(ExpectedConditions.presenceOfElementLocated(returnElement(element.toString())));
+                .until(ExpectedConditions.presenceOfElementLocated(locatorOf(element)));
     }
 
     public void presenceOfElementLocated(By element) {
@@ -588,7 +607,7 @@ public class BasePageActions {
     }
 
     public void fluentWait(WebElement element) {
-        fluentWait(returnElement(element.toString()));
+        fluentWait(locatorOf(element));
     }
 
     public void waitForElementToBeDisplayed(By by, int timeout, int pollInterval) {
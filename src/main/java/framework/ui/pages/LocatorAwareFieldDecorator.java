@@ -0,0 +1,42 @@
+package framework.ui.pages;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.support.pagefactory.Annotations;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocatorFactory;
+import org.openqa.selenium.support.pagefactory.DefaultFieldDecorator;
+
+import java.lang.reflect.Field;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * PageFactory decorator that keeps the locator of every element and element list proxy it creates, so a page
+ * gets the {@link By} of its own fields back without parsing the proxy's toString().
+ */
+public class LocatorAwareFieldDecorator extends DefaultFieldDecorator {
+
+    // proxies compare by identity, their equals and hashCode would go to the browser
+    private final Map<Object, By> locators = new IdentityHashMap<>();
+
+    public LocatorAwareFieldDecorator(SearchContext searchContext) {
+        super(new DefaultElementLocatorFactory(searchContext));
+    }
+
+    @Override
+    public Object decorate(ClassLoader loader, Field field) {
+        Object proxy = super.decorate(loader, field);
+        if (proxy != null) {
+            // same By the element locator was built with, @FindBy, @FindBys, @FindAll or the field name
+            locators.put(proxy, new Annotations(field).buildBy());
+        }
+        return proxy;
+    }
+
+    /**
+     * Locator of a WebElement or List&lt;WebElement&gt; field proxy, null for anything this decorator didn't create.
+     */
+    public By locatorOf(Object proxy) {
+        return locators.get(proxy);
+    }
+}
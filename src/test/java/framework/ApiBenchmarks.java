@@ -0,0 +1,209 @@
+package framework;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import framework.api.generated.UsersPageCodec;
+import framework.api.mapping.JsonMapping;
+import framework.api.mapping.JsonPaths;
+import framework.api.mapping.JsonValues;
+import framework.api.requests.CreateUserRequest;
+import framework.api.responses.CreateUserResponse;
+import framework.api.responses.UsersPage;
+import framework.logging.AsyncLogAppender;
+import io.restassured.RestAssured;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.ContentType;
+import io.restassured.internal.RestAssuredResponseOptionsImpl;
+import io.restassured.response.Response;
+import lombok.extern.log4j.Log4j;
+import org.apache.log4j.Appender;
+import org.apache.log4j.FileAppender;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Micro benchmarks of the api layer, run them with benchmarkSuite.xml.
+ * Plain timing loops after a warm up, good enough to compare approaches that are an order of magnitude apart.
+ */
+@Log4j
+public class ApiBenchmarks {
+
+    private static final int WARM_UP_ITERATIONS = 20_000;
+    private static final int ITERATIONS = 50_000;
+
+    private static final String USER_RESPONSE = "{\"name\":\"manuelUsername\",\"job\":\"randomJob\",\"id\":\"123\",\"createdAt\":\"2021-07-01T10:00:00.000Z\"}";
+
+    private static final String USERS_PAGE = "{\"page\":2,\"per_page\":6,\"total\":12,\"total_pages\":2,\"data\":["
+            + "{\"id\":7,\"email\":\"user7@reqres.in\",\"first_name\":\"First7\",\"last_name\":\"Last7\",\"avatar\":\"https://reqres.in/img/faces/7-image.jpg\"},"
+            + "{\"id\":8,\"email\":\"user8@reqres.in\",\"first_name\":\"First8\",\"last_name\":\"Last8\",\"avatar\":\"https://reqres.in/img/faces/8-image.jpg\"},"
+            + "{\"id\":9,\"email\":\"user9@reqres.in\",\"first_name\":\"First9\",\"last_name\":\"Last9\",\"avatar\":\"https://reqres.in/img/faces/9-image.jpg\"},"
+            + "{\"id\":10,\"email\":\"user10@reqres.in\",\"first_name\":\"First10\",\"last_name\":\"Last10\",\"avatar\":\"https://reqres.in/img/faces/10-image.jpg\"},"
+            + "{\"id\":11,\"email\":\"user11@reqres.in\",\"first_name\":\"First11\",\"last_name\":\"Last11\",\"avatar\":\"https://reqres.in/img/faces/11-image.jpg\"},"
+            + "{\"id\":12,\"email\":\"user12@reqres.in\",\"first_name\":\"First12\",\"last_name\":\"Last12\",\"avatar\":\"https://reqres.in/img/faces/12-image.jpg\"}],"
+            + "\"support\":{\"url\":\"https://reqres.in/#support-heading\",\"text\":\"To keep ReqRes free, contributions are appreciated!\"}}";
+
+    @Test
+    public void benchmarkSharedMapperAgainstMapperPerCall() throws Exception {
+
+        CreateUserRequest userRequest = CreateUserRequest.builder().name("manuelUsername").job("randomJob").build();
+
+        // what RestAssured's mapper factory and the failure log used to do on every call
+        double perCallNanos = nanosPerOperation(() -> {
+            JsonMapping.createMapper().writeValueAsString(userRequest);
+            return JsonMapping.createMapper().readValue(USER_RESPONSE, CreateUserResponse.class);
+        });
+
+        ObjectWriter writer = JsonMapping.writer(CreateUserRequest.class);
+        ObjectReader reader = JsonMapping.reader(CreateUserResponse.class);
+        double sharedNanos = nanosPerOperation(() -> {
+            writer.writeValueAsString(userRequest);
+            return reader.readValue(USER_RESPONSE);
+        });
+
+        String result = String.format("Write request + read response: mapper per call %.0fns/op, shared mapper %.0fns/op (x%.1f)",
+                perCallNanos, sharedNanos, perCallNanos / sharedNanos);
+        log.info(result);
+        Reporter.log(result);
+        assertTrue(sharedNanos < perCallNanos, result);
+    }
+
+    @Test
+    public void benchmarkGeneratedCodecAgainstBeanMapping() throws Exception {
+
+        byte[] json = USERS_PAGE.getBytes(StandardCharsets.UTF_8);
+
+        // Jackson's reflective bean (de)serializers, introspected on first use of a type by every new mapper
+        double firstUseBeanNanos = nanosPerOperation(() -> {
+            ObjectMapper beanMapper = new ObjectMapper();
+            return beanMapper.writeValueAsString(beanMapper.readValue(json, UsersPage.class));
+        }, 200, 1_000);
+        double firstUseCodecNanos = nanosPerOperation(() ->
+                JsonValues.toJson(JsonValues.fromJson(json, UsersPageCodec::read), UsersPageCodec::write), 200, 1_000);
+
+        ObjectMapper beanMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        ObjectReader beanReader = beanMapper.readerFor(UsersPage.class);
+        ObjectWriter beanWriter = beanMapper.writerFor(UsersPage.class);
+        double beanNanos = nanosPerOperation(() -> beanWriter.writeValueAsString(beanReader.readValue(json)));
+        double codecNanos = nanosPerOperation(() ->
+                JsonValues.toJson(JsonValues.fromJson(json, UsersPageCodec::read), UsersPageCodec::write));
+
+        UsersPage expected = beanReader.readValue(json);
+        assertEquals(JsonValues.fromJson(json, UsersPageCodec::read), expected);
+        assertEquals(beanReader.readValue(JsonValues.toJson(expected, UsersPageCodec::write)), expected);
+
+        String result = String.format("Read + write a users page: first use bean mapping %.0fns/op, generated codec %.0fns/op (x%.1f), "
+                        + "warm bean mapping %.0fns/op, generated codec %.0fns/op (x%.1f)",
+                firstUseBeanNanos, firstUseCodecNanos, firstUseBeanNanos / firstUseCodecNanos, beanNanos, codecNanos, beanNanos / codecNanos);
+        log.info(result);
+        Reporter.log(result);
+        assertTrue(firstUseCodecNanos < firstUseBeanNanos, result);
+    }
+
+    @Test
+    public void benchmarkCompiledJsonPathAgainstGPath() throws Exception {
+
+        String[] paths = {"page", "total", "data[0].email", "data[-1].last_name", "data.id", "support.url"};
+
+        // a new response per operation, as every call of a test gets its own
+        // GPath evaluates every lookup as a groovy script, tens of ms each on recent JDKs, hence the fewer iterations
+        double gPathNanos = nanosPerOperation(() -> {
+            Response response = usersPage();
+            Object value = null;
+            for (String path : paths) value = response.jsonPath().get(path).toString();
+            return value;
+        }, 20, 50);
+
+        double compiledNanos = nanosPerOperation(() -> {
+            Response response = usersPage();
+            Object value = null;
+            for (String path : paths) value = JsonPaths.getString(response, path);
+            return value;
+        });
+
+        Response response = usersPage();
+        for (String path : new String[]{"page", "total", "data[0].email", "data[-1].last_name", "support.url"}) {
+            assertEquals(JsonPaths.getString(response, path), response.jsonPath().get(path).toString(), path);
+        }
+
+        String result = String.format("%d lookups on a users page: GPath %.0fns/op, compiled paths %.0fns/op (x%.1f)",
+                paths.length, gPathNanos, compiledNanos, gPathNanos / compiledNanos);
+        log.info(result);
+        Reporter.log(result);
+        assertTrue(compiledNanos < gPathNanos, result);
+    }
+
+    @Test
+    public void benchmarkAsyncAppenderAgainstSynchronousAppender() throws Exception {
+
+        Logger logger = Logger.getLogger("benchmark.logging");
+        logger.setAdditivity(false);
+        new File("target/benchmark-logs").mkdirs();
+
+        // the previous setup, every event formatted, located (%L) and written on the calling thread
+        FileAppender synchronous = new FileAppender(new PatternLayout("%d{yyyy-MM-dd HH:mm:ss} %-5p %c{1}:%L - %m%n"),
+                "target/benchmark-logs/synchronous.log", false);
+        double synchronousNanos = loggingNanos(logger, synchronous);
+
+        AsyncLogAppender async = new AsyncLogAppender();
+        async.setTarget("target/benchmark-logs/async.log");
+        async.activateOptions();
+        double asyncNanos = loggingNanos(logger, async);
+
+        String result = String.format("log.info on the calling thread: synchronous appender %.0fns/op, async appender %.0fns/op (x%.1f)",
+                synchronousNanos, asyncNanos, synchronousNanos / asyncNanos);
+        log.info(result);
+        Reporter.log(result);
+        assertTrue(asyncNanos < synchronousNanos, result);
+    }
+
+    private static double loggingNanos(Logger logger, Appender appender) throws Exception {
+        logger.removeAllAppenders();
+        logger.addAppender(appender);
+        try {
+            return nanosPerOperation(() -> {
+                logger.info("Clicking on element By.xpath: //div[@id='content']//button[text()='Submit']");
+                return logger;
+            });
+        } finally {
+            logger.removeAllAppenders();
+            appender.close();
+        }
+    }
+
+    private static Response usersPage() {
+        Response response = new ResponseBuilder()
+                .setStatusCode(200)
+                .setContentType(ContentType.JSON)
+                .setBody(USERS_PAGE)
+                .build();
+        // built responses have no config, jsonPath() needs it
+        ((RestAssuredResponseOptionsImpl<?>) response).setConfig(RestAssured.config());
+        return response;
+    }
+
+    private static double nanosPerOperation(Callable<Object> operation) throws Exception {
+        return nanosPerOperation(operation, WARM_UP_ITERATIONS, ITERATIONS);
+    }
+
+    private static double nanosPerOperation(Callable<Object> operation, int warmUpIterations, int iterations) throws Exception {
+        Object sink = null;
+        for (int i = 0; i < warmUpIterations; i++) sink = operation.call();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) sink = operation.call();
+        long elapsed = System.nanoTime() - start;
+        // keeps the results alive so the loop can't be optimized away
+        if (sink == null) throw new IllegalStateException("Benchmark returned no result");
+        return elapsed / (double) iterations;
+    }
+}
@@ -0,0 +1,49 @@
+package framework;
+
+import framework.api.UserService;
+import framework.api.load.LatencyRecorder;
+import framework.api.load.LoadReport;
+import framework.api.load.OpenLoadGenerator;
+import framework.api.requests.CreateUserRequest;
+import lombok.extern.log4j.Log4j;
+import org.testng.Reporter;
+import org.testng.annotations.Parameters;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.testng.Assert.assertTrue;
+
+@Log4j
+public class ApiLoadTests extends BaseTest {
+
+    @Test
+    @Parameters({"rate", "durationSeconds", "maxInFlight", "maxErrorRate"})
+    public void verifyUserCrudUnderOpenLoad(double rate, int durationSeconds, int maxInFlight, double maxErrorRate) {
+
+        UserService userService = api.getUserService();
+        LatencyRecorder recorder = new LatencyRecorder();
+
+        // Create, update and delete one user per scenario, started at a fixed rate
+        LoadReport report = new OpenLoadGenerator(rate, Duration.ofSeconds(durationSeconds), maxInFlight, Duration.ofSeconds(60))
+                .run(intendedStart -> {
+                    CreateUserRequest userRequest = CreateUserRequest.builder()
+                            .name("loadUsername" + ThreadLocalRandom.current().nextInt(999))
+                            .job("loadJob" + ThreadLocalRandom.current().nextInt(999))
+                            .build();
+                    return recorder.time("create", intendedStart, () -> userService.postUserAsync(userRequest, 201))
+                            .thenCompose(created -> recorder.time("update",
+                                    () -> userService.putUserAsync(created.getId().toString(), userRequest, 200))
+                                    .thenCompose(updated -> recorder.time("delete",
+                                            () -> userService.deleteUserAsync(created.getId().toString(), 204))));
+                }, recorder);
+
+        log.info(report);
+        Reporter.log(report.toString().replace("\n", "<br>"));
+
+        // dropped scenarios count against the error budget, they aren't in the latencies
+        double errorRate = report.getErrorRate();
+        assertTrue(errorRate <= maxErrorRate, "Error rate " + errorRate + " is above " + maxErrorRate + "\n" + report);
+    }
+}
@@ -1,18 +1,52 @@
 package framework;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import framework.api.ApiRequest;
+import framework.api.BulkResult;
+import framework.api.fixtures.UserLease;
+import framework.api.http.HttpCache;
+import framework.api.http.HttpCacheConfig;
+import framework.api.metrics.RequestLatencies;
 import framework.api.requests.CreateUserRequest;
 import framework.api.responses.CreateUserResponse;
+import framework.api.responses.User;
+import framework.api.responses.UsersPage;
+import framework.api.streaming.StreamingResponse;
+import framework.api.stub.EmbeddedUserApi;
+import io.restassured.http.Method;
 import lombok.extern.log4j.Log4j;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 @Log4j
 public class ApiTests extends BaseTest{
 
+    // Starts creating the users the tests lease while the first tests run
+    @BeforeClass
+    public void warmUpUserPool() {
+        api.getUserPool();
+    }
+
+    // Fails the class when an endpoint went over one of the latency.budgets in config.properties
+    @AfterClass(alwaysRun = true)
+    public void verifyLatencyBudgets() {
+        RequestLatencies.assertBudgets();
+    }
+
     @Test
     public void verifyUserCreation () {
 
@@ -37,38 +71,143 @@ public class ApiTests extends BaseTest{
 
         Random r = new Random();
 
-        CreateUserRequest userRequest = CreateUserRequest.builder()
-                .name("manuelUsername" + r.nextInt(999))
-                .job("randomJob" + r.nextInt(999))
-                .build();
+        // Leases a user created ahead by the pool
+        try (UserLease user = api.getUserPool().lease()) {
+
+            // UpdateUser, Response code is checked in the method
+            CreateUserRequest userRequest = CreateUserRequest.builder()
+                    .name(user.getRequest().getName())
+                    .job("updatedJob" + r.nextInt(999))
+                    .build();
+            api.getUserService()
+                    .putUser(user.getId(), userRequest, 200);
+        }
+    }
 
-        // Creates User
-        CreateUserResponse createUserResponse = api.getUserService()
-                .postUser(userRequest,201)
-                .as(CreateUserResponse.class);
+    @Test
+    public void verifyUserDeletion() {
 
-        // UpdateUser, Response code is checked in the method
-        userRequest.setJob("updatedJob" + r.nextInt(999));
-        api.getUserService()
-                .putUser(createUserResponse.getId().toString(), userRequest, 200);
+        // Leases a user created ahead by the pool
+        try (UserLease user = api.getUserPool().lease()) {
+
+            // Response code is checked in the method
+            api.getUserService().deleteUser(user.getId(), 204);
+        }
     }
 
     @Test
-    public void verifyUserDeletion() {
+    public void verifyUserCreationAsync() {
 
         Random r = new Random();
 
-        CreateUserRequest userRequest = CreateUserRequest.builder()
-                .name("manuelUsername" + r.nextInt(999))
-                .job("randomJob" + r.nextInt(999))
-                .build();
+        List<CreateUserRequest> userRequests = IntStream.range(0, 10)
+                .mapToObj(i -> CreateUserRequest.builder()
+                        .name("manuelUsername" + r.nextInt(999))
+                        .job("randomJob" + r.nextInt(999))
+                        .build())
+                .collect(Collectors.toList());
+
+        // Creates all users concurrently, Response code is checked in the method
+        List<CompletableFuture<CreateUserResponse>> createUserResponses = userRequests.stream()
+                .map(userRequest -> api.getUserService().postUserAsync(userRequest, 201))
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < userRequests.size(); i++) {
+            CreateUserResponse createUserResponse = createUserResponses.get(i).join();
+            assertEquals(createUserResponse.getName(), userRequests.get(i).getName());
+            assertEquals(createUserResponse.getJob(), userRequests.get(i).getJob());
+        }
+    }
 
-        // Creates User
-        CreateUserResponse createUserResponse = api.getUserService()
-                .postUser(userRequest, 201)
-                .as(CreateUserResponse.class);
+    @Test
+    public void verifyBulkUserCreationAndDeletion() {
+
+        Random r = new Random();
+
+        List<CreateUserRequest> userRequests = IntStream.range(0, 20)
+                .mapToObj(i -> CreateUserRequest.builder()
+                        .name("manuelUsername" + r.nextInt(999))
+                        .job("randomJob" + r.nextInt(999))
+                        .build())
+                .collect(Collectors.toList());
+
+        // Creates Users 5 at a time
+        List<BulkResult<CreateUserRequest, CreateUserResponse>> created = api.getUserService()
+                .postUsers(userRequests, 201, 5)
+                .collect(Collectors.toList());
+
+        assertEquals(created.size(), userRequests.size());
+        created.forEach(result -> {
+            assertTrue(result.isSuccess(), "User creation failed: " + result.getError());
+            assertEquals(result.getResult().getName(), result.getItem().getName());
+            assertEquals(result.getResult().getJob(), result.getItem().getJob());
+        });
 
         // Response code is checked in the method
-        api.getUserService().deleteUser(createUserResponse.getId().toString(), 204);
+        List<String> ids = created.stream()
+                .map(result -> result.getResult().getId().toString())
+                .collect(Collectors.toList());
+        assertTrue(api.getUserService().deleteUsers(ids, 204, 5).allMatch(BulkResult::isSuccess));
+    }
+
+    @Test
+    public void verifyUserListStreaming () {
+
+        // Page fields are read without buffering the body
+        try (StreamingResponse page = api.getUserService().getUsers(2, 200)) {
+            Map<String, JsonNode> values = page.extract("/page", "/per_page");
+            assertEquals(values.get("/page").asInt(), 2);
+            assertTrue(values.get("/per_page").asInt() > 0);
+        }
+
+        // Users are mapped one at a time while the body is read
+        try (Stream<User> users = api.getUserService().getUsers(2, 200).elements("/data", User.class)) {
+            users.forEach(user -> {
+                assertTrue(user.getId() != null);
+                assertTrue(user.getEmail().contains("@"));
+            });
+        }
+    }
+
+    @Test
+    public void verifyUserListPaging() {
+
+        UsersPage first = api.getUserService().getUsersAsync(1, 200).join();
+
+        // Following pages are fetched ahead while earlier ones are read
+        try (Stream<User> users = api.getUserService().listUsers(2)) {
+            List<Integer> ids = users.map(User::getId).collect(Collectors.toList());
+            assertEquals(ids.size(), first.getTotal().intValue());
+            assertEquals(new HashSet<>(ids).size(), ids.size());
+        }
+    }
+
+    @Test
+    public void verifyUserUpdateInvalidatesCachedUser() {
+
+        // Own stand-in api and cache, the shared ones may point at reqres.in or have the cache off
+        EmbeddedUserApi embeddedApi = new EmbeddedUserApi(0);
+        HttpCacheConfig cacheConfig = new HttpCacheConfig();
+        cacheConfig.setEnabled(true);
+        HttpCache cache = new HttpCache(cacheConfig);
+        try {
+            String userUrl = embeddedApi.getBaseUrl() + "api/users/2";
+
+            // Reads are cached for hours, like on reqres.in
+            HttpCache.Lookup read = cache.lookup("GET", userUrl, name -> null);
+            cache.complete(read, api.send(ApiRequest.builder().method(Method.GET).url(userUrl).expectedStatus(200).build()));
+            assertTrue(cache.lookup("GET", userUrl, name -> null).isFresh(), "User wasn't cached");
+
+            // Same lookup and complete the cache filter and the async calls go through
+            CreateUserRequest userRequest = CreateUserRequest.builder().name("manuelUsername").job("updatedJob").build();
+            HttpCache.Lookup update = cache.lookup("PUT", userUrl, name -> null);
+            assertFalse(update.isFresh());
+            cache.complete(update, api.send(ApiRequest.builder().method(Method.PUT).url(userUrl).body(userRequest).expectedStatus(200).build()));
+
+            assertFalse(cache.lookup("GET", userUrl, name -> null).isFresh(), "User read after the update came from the cache");
+            assertEquals(cache.getStats().getInvalidations(), 1);
+        } finally {
+            embeddedApi.stop();
+        }
     }
 }
@@ -3,11 +3,23 @@ package framework;
 import framework.api.Services;
 import framework.ui.common.PagesConfig;
 import framework.ui.common.ResourceNotFoundException;
+import framework.ui.driver.BrowserProfileConfig;
+import framework.ui.driver.ChromeProfiles;
+import framework.ui.driver.ChromeService;
+import framework.ui.driver.ChromeServiceConfig;
+import framework.ui.driver.ChromeServiceStats;
+import framework.ui.driver.DriverPool;
+import framework.ui.driver.DriverPoolConfig;
+import framework.ui.driver.DriverPoolStats;
+import framework.ui.driver.PageLoads;
+import framework.ui.driver.TestContext;
 import framework.ui.pages.BasePageActions;
-import io.github.bonigarcia.wdm.WebDriverManager;
 import lombok.extern.log4j.Log4j;
 import org.apache.log4j.PropertyConfigurator;
 import org.openqa.selenium.WebDriver;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.AfterSuite;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeSuite;
 import org.testng.asserts.SoftAssert;
 
@@ -18,24 +30,85 @@ import static com.google.common.base.Preconditions.checkArgument;
 @Log4j
 public class BaseTest {
 
-    public static SoftAssert softly;
-
     protected static PagesConfig pagesConfig;
 
-    protected WebDriver driver;
-
     protected static Services api;
 
+    // one chromedriver for every browser, started with the first one
+    protected static ChromeService chromeService;
+
+    protected static BrowserProfileConfig browserProfile;
+
+    // browsers are only launched by the ui tests, on warm up or first lease
+    protected static DriverPool drivers;
+
+    protected static PageLoads pageLoads;
+
     @BeforeSuite
     public static void setupClass() {
 
-        WebDriverManager.chromedriver().setup();
-        softly = new SoftAssert();
         pagesConfig = new PagesConfig();
         api = new Services();
+        chromeService = new ChromeService(new ChromeServiceConfig());
+        browserProfile = new BrowserProfileConfig();
+        pageLoads = new PageLoads(browserProfile.getProfile().name().toLowerCase());
+        drivers = new DriverPool(BaseTest::launchChrome, new DriverPoolConfig());
         setLog4j();
     }
 
+    @AfterSuite(alwaysRun = true)
+    public static void tearDownClass() {
+        if (api != null) {
+            log.info(api.getConnectionPoolStats());
+            log.info(api.getHedgeStats());
+            if (api.getHttpCacheStats() != null) log.info(api.getHttpCacheStats());
+            if (api.getRateLimitStats() != null) log.info(api.getRateLimitStats());
+            api.shutdown();
+        }
+        if (drivers != null) {
+            if (pageLoads.getStats().getLoads() > 0) log.info(pageLoads.getStats());
+            // api only runs never launch a browser
+            DriverPoolStats driverStats = drivers.getStats();
+            if (driverStats.getLaunched() + driverStats.getFailedLaunches() > 0) log.info(driverStats);
+            drivers.shutdown();
+        }
+        if (chromeService != null) {
+            ChromeServiceStats chromeStats = chromeService.getStats();
+            if (chromeStats.getBinarySource() != null || chromeStats.getSessions() > 0) log.info(chromeStats);
+            chromeService.stop();
+        }
+    }
+
+    private static WebDriver launchChrome() {
+        WebDriver chrome = chromeService.newSession(ChromeProfiles.options(browserProfile));
+        ChromeProfiles.prepare(browserProfile.getProfile(), chrome);
+        return chrome;
+    }
+
+    @BeforeMethod(alwaysRun = true)
+    public void beginTestContext() {
+        TestContext.begin();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void endTestContext() {
+        TestContext.end();
+    }
+
+    /**
+     * Soft assertions of the test running on the calling thread, checked by its softly().assertAll().
+     */
+    public static SoftAssert softly() {
+        return TestContext.current().getSoftly();
+    }
+
+    /**
+     * Browser leased to the test running on the calling thread.
+     */
+    protected static WebDriver driver() {
+        return TestContext.current().getDriver();
+    }
+
     public <T extends BasePageActions> T navigateToPage(String url, Class<T> page) {
         checkArgument(url != null && !url.isEmpty(), "URL cant be null or empty");
         checkArgument(page != null, "next page cant be null");
@@ -45,7 +118,9 @@ public class BaseTest {
 
     public void navigateTo(String server) {
         log.info("Navigate to - " + server);
+        WebDriver driver = driver();
         driver.navigate().to(server);
+        pageLoads.record(driver);
 
     }
 
@@ -53,6 +128,7 @@ public class BaseTest {
         if (page == null) {
             return null;
         }
+        WebDriver driver = driver();
         try {
             log.info("Current URL: " + driver.getCurrentUrl() + " Corresponding Page Object: " + page.getSimpleName());
             return page.getConstructor(WebDriver.class).newInstance(driver);
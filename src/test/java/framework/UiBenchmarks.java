@@ -0,0 +1,54 @@
+package framework;
+
+import framework.ui.driver.BrowserProfile;
+import framework.ui.driver.ChromeProfiles;
+import framework.ui.driver.PageLoadStats;
+import framework.ui.driver.PageLoads;
+import framework.ui.pages.VacanciesPage;
+import lombok.extern.log4j.Log4j;
+import org.openqa.selenium.WebDriver;
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Browser benchmarks against the real site, run them with benchmarkSuite.xml.
+ */
+@Log4j
+public class UiBenchmarks extends BaseTest {
+
+    private static final int LOADS = 5;
+
+    @Test
+    public void benchmarkLeanProfileAgainstFullProfile() {
+
+        PageLoadStats full = loadVacancies(BrowserProfile.FULL);
+        PageLoadStats lean = loadVacancies(BrowserProfile.LEAN);
+
+        String result = String.format("Vacancies page: %s; %s (x%.1f)", full, lean, full.getAverageLoadMillis() / lean.getAverageLoadMillis());
+        log.info(result);
+        Reporter.log(result);
+        assertTrue(lean.getAverageLoadMillis() < full.getAverageLoadMillis(), result);
+    }
+
+    private PageLoadStats loadVacancies(BrowserProfile profile) {
+        WebDriver browser = chromeService.newSession(ChromeProfiles.options(profile, browserProfile));
+        PageLoads loads = new PageLoads(profile.name().toLowerCase());
+        try {
+            ChromeProfiles.prepare(profile, browser);
+            // first load pays for DNS, connections and an empty cache, like a pooled session's first test only
+            browser.navigate().to(pagesConfig.getVacancies());
+            for (int i = 0; i < LOADS; i++) {
+                browser.navigate().to(pagesConfig.getVacancies());
+                loads.record(browser);
+            }
+            // blocking must leave the Lever job list working
+            assertFalse(new VacanciesPage(browser).groupItems.isEmpty(), "No vacancies listed with the " + profile + " profile");
+        } finally {
+            browser.quit();
+        }
+        return loads.getStats();
+    }
+}
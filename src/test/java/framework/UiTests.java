@@ -1,9 +1,9 @@
 package framework;
 
+import framework.ui.driver.TestContext;
 import framework.ui.pages.*;
 import org.openqa.selenium.By;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -12,17 +12,17 @@ import static org.testng.Assert.assertTrue;
 
 public class UiTests extends BaseTest {
 
-    @BeforeMethod
-    public void setup() {
-        driver = new ChromeDriver();
-        driver.manage().window().maximize();
+    @BeforeClass
+    public void warmUpDrivers() {
+        drivers.warmUp();
     }
 
-    @AfterMethod
-    public void teardown() {
-        if (driver != null) {
-            driver.quit();
-        }
+    /**
+     * Runs after BaseTest's, in the test's context; the browser goes back to the pool when the context ends.
+     */
+    @BeforeMethod
+    public void setup() {
+        TestContext.current().setLease(drivers.lease());
     }
 
     @Test